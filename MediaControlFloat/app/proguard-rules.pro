@@ -0,0 +1,7 @@
+# release 构建移除 AppLog 的 verbose/debug 调用（参数的拼接与装箱一并移除）
+-assumenosideeffects class com.mediacontrol.floatwidget.AppLog {
+    public static void v(...);
+    public static void d(...);
+}
+
+# 清单中声明的服务、Activity 由 AGP 生成的 keep 规则保留类名，这里无需重复
@@ -0,0 +1,45 @@
+package com.mediacontrol.floatwidget;
+
+import android.view.accessibility.AccessibilityNodeInfo;
+
+import com.mediacontrol.floatwidget.core.NodeAdapter;
+
+/**
+ * 让 core 模块的树搜索代码访问无障碍节点，释放时回收节点
+ */
+public final class AccessibilityNodeAdapter implements NodeAdapter<AccessibilityNodeInfo> {
+    public static final AccessibilityNodeAdapter INSTANCE = new AccessibilityNodeAdapter();
+
+    private AccessibilityNodeAdapter() {
+    }
+
+    @Override
+    public int getChildCount(AccessibilityNodeInfo node) {
+        return node.getChildCount();
+    }
+
+    @Override
+    public AccessibilityNodeInfo getChild(AccessibilityNodeInfo node, int index) {
+        return node.getChild(index);
+    }
+
+    @Override
+    public CharSequence getContentDescription(AccessibilityNodeInfo node) {
+        return node.getContentDescription();
+    }
+
+    @Override
+    public boolean isFocusable(AccessibilityNodeInfo node) {
+        return node.isFocusable();
+    }
+
+    @Override
+    public boolean isClickable(AccessibilityNodeInfo node) {
+        return node.isClickable();
+    }
+
+    @Override
+    public void release(AccessibilityNodeInfo node) {
+        node.recycle();
+    }
+}
@@ -0,0 +1,220 @@
+package com.mediacontrol.floatwidget;
+
+import android.util.Log;
+
+import com.mediacontrol.floatwidget.core.CoreLog;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * 日志门面 - 参数化消息，级别未启用时不做任何格式化
+ * 启用的日志同时写入 logcat 和预分配的环形缓冲区，可随时导出最近的记录
+ * release 构建中 v/d 调用由 proguard-rules.pro 的 -assumenosideeffects 整体移除
+ * core 模块的日志（CoreLog）在本类加载时接入
+ */
+public final class AppLog {
+    private static final String TAG = "AppLog";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int RING_ENTRIES = 512;
+    private static final int MAX_MESSAGE_CHARS = 200;
+    private static final char[] LEVEL_CHARS = {'?', '?', 'V', 'D', 'I', 'W', 'E', 'A'};
+
+    // 最低启用级别，低于此级别的调用直接返回
+    private static volatile int minLevel = BuildConfig.DEBUG ? Log.DEBUG : Log.INFO;
+
+    // 环形缓冲区，所有数组在类加载时一次性分配，仅在持有 lock 时访问
+    private static final Object lock = new Object();
+    private static final long[] times = new long[RING_ENTRIES];
+    private static final byte[] levels = new byte[RING_ENTRIES];
+    private static final String[] tags = new String[RING_ENTRIES];
+    private static final char[] text = new char[RING_ENTRIES * MAX_MESSAGE_CHARS];
+    private static final short[] lengths = new short[RING_ENTRIES];
+    private static final StringBuilder scratch = new StringBuilder(MAX_MESSAGE_CHARS * 2);
+    private static int next;
+    private static long written;
+
+    static {
+        CoreLog.setSink(new CoreLog.Sink() {
+            @Override
+            public boolean isLoggable(int level) {
+                return level >= minLevel;
+            }
+
+            @Override
+            public void log(int level, String tag, String message, Object a, Object b,
+                            int argCount, Throwable tr) {
+                AppLog.log(level, tag, message, a, b, null, argCount, tr);
+            }
+        });
+    }
+
+    private AppLog() {
+    }
+
+    public static void setMinLevel(int level) {
+        minLevel = level;
+    }
+
+    public static boolean isLoggable(int level) {
+        return level >= minLevel;
+    }
+
+    public static void v(String tag, String msg) {
+        if (Log.VERBOSE >= minLevel) log(Log.VERBOSE, tag, msg, null, null, null, 0, null);
+    }
+
+    public static void v(String tag, String fmt, Object a) {
+        if (Log.VERBOSE >= minLevel) log(Log.VERBOSE, tag, fmt, a, null, null, 1, null);
+    }
+
+    public static void d(String tag, String msg) {
+        if (Log.DEBUG >= minLevel) log(Log.DEBUG, tag, msg, null, null, null, 0, null);
+    }
+
+    public static void d(String tag, String fmt, Object a) {
+        if (Log.DEBUG >= minLevel) log(Log.DEBUG, tag, fmt, a, null, null, 1, null);
+    }
+
+    public static void d(String tag, String fmt, Object a, Object b) {
+        if (Log.DEBUG >= minLevel) log(Log.DEBUG, tag, fmt, a, b, null, 2, null);
+    }
+
+    public static void d(String tag, String fmt, Object a, Object b, Object c) {
+        if (Log.DEBUG >= minLevel) log(Log.DEBUG, tag, fmt, a, b, c, 3, null);
+    }
+
+    public static void i(String tag, String msg) {
+        if (Log.INFO >= minLevel) log(Log.INFO, tag, msg, null, null, null, 0, null);
+    }
+
+    public static void i(String tag, String fmt, Object a) {
+        if (Log.INFO >= minLevel) log(Log.INFO, tag, fmt, a, null, null, 1, null);
+    }
+
+    public static void w(String tag, String msg) {
+        if (Log.WARN >= minLevel) log(Log.WARN, tag, msg, null, null, null, 0, null);
+    }
+
+    public static void w(String tag, String fmt, Object a) {
+        if (Log.WARN >= minLevel) log(Log.WARN, tag, fmt, a, null, null, 1, null);
+    }
+
+    public static void w(String tag, String fmt, Object a, Object b) {
+        if (Log.WARN >= minLevel) log(Log.WARN, tag, fmt, a, b, null, 2, null);
+    }
+
+    public static void w(String tag, String msg, Throwable tr) {
+        if (Log.WARN >= minLevel) log(Log.WARN, tag, msg, null, null, null, 0, tr);
+    }
+
+    public static void e(String tag, String msg) {
+        if (Log.ERROR >= minLevel) log(Log.ERROR, tag, msg, null, null, null, 0, null);
+    }
+
+    public static void e(String tag, String msg, Throwable tr) {
+        if (Log.ERROR >= minLevel) log(Log.ERROR, tag, msg, null, null, null, 0, tr);
+    }
+
+    public static void e(String tag, String fmt, Object a, Throwable tr) {
+        if (Log.ERROR >= minLevel) log(Log.ERROR, tag, fmt, a, null, null, 1, tr);
+    }
+
+    private static void log(int level, String tag, String fmt, Object a, Object b, Object c,
+                            int argCount, Throwable tr) {
+        String message;
+        synchronized (lock) {
+            scratch.setLength(0);
+            format(scratch, fmt, a, b, c, argCount);
+            if (tr != null) {
+                scratch.append(": ").append(tr);
+            }
+            record(level, tag);
+            message = scratch.toString();
+        }
+        if (tr != null) {
+            Log.println(level, tag, message + '\n' + Log.getStackTraceString(tr));
+        } else {
+            Log.println(level, tag, message);
+        }
+    }
+
+    /**
+     * 依次用参数替换 fmt 中的 {}，多余的 {} 原样保留
+     */
+    private static void format(StringBuilder out, String fmt, Object a, Object b, Object c, int argCount) {
+        if (argCount == 0) {
+            out.append(fmt);
+            return;
+        }
+        int used = 0;
+        int length = fmt.length();
+        for (int i = 0; i < length; i++) {
+            char ch = fmt.charAt(i);
+            if (ch == '{' && i + 1 < length && fmt.charAt(i + 1) == '}' && used < argCount) {
+                out.append(used == 0 ? a : used == 1 ? b : c);
+                used++;
+                i++;
+            } else {
+                out.append(ch);
+            }
+        }
+    }
+
+    // 把 scratch 中的消息复制到环形缓冲区的下一个槽位（调用方持有 lock）
+    private static void record(int level, String tag) {
+        int slot = next;
+        int count = Math.min(scratch.length(), MAX_MESSAGE_CHARS);
+        scratch.getChars(0, count, text, slot * MAX_MESSAGE_CHARS);
+        times[slot] = System.currentTimeMillis();
+        levels[slot] = (byte) level;
+        tags[slot] = tag;
+        lengths[slot] = (short) count;
+        next = (slot + 1) % RING_ENTRIES;
+        written++;
+    }
+
+    /**
+     * 按时间顺序导出环形缓冲区中的记录
+     */
+    public static String dump() {
+        synchronized (lock) {
+            int count = (int) Math.min(written, RING_ENTRIES);
+            int start = (next - count + RING_ENTRIES) % RING_ENTRIES;
+            StringBuilder out = new StringBuilder(count * 64);
+            for (int n = 0; n < count; n++) {
+                int slot = (start + n) % RING_ENTRIES;
+                out.append(times[slot]).append(' ')
+                    .append(LEVEL_CHARS[levels[slot]]).append(' ')
+                    .append(tags[slot]).append(": ")
+                    .append(text, slot * MAX_MESSAGE_CHARS, lengths[slot])
+                    .append('\n');
+            }
+            return out.toString();
+        }
+    }
+
+    /**
+     * 在后台线程把当前缓冲区内容写入文件
+     */
+    public static void dumpTo(final File file) {
+        final String snapshot = dump();
+        Thread writer = new Thread(() -> {
+            try {
+                Writer out = new OutputStreamWriter(new FileOutputStream(file), UTF_8);
+                try {
+                    out.write(snapshot);
+                } finally {
+                    out.close();
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "导出日志失败", e);
+            }
+        }, "AppLogDump");
+        writer.start();
+    }
+}
@@ -8,38 +8,78 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.content.res.Configuration;
+import android.database.ContentObserver;
 import android.graphics.PixelFormat;
+import android.graphics.Rect;
 import android.os.Build;
 import android.os.IBinder;
 import android.view.Gravity;
 import android.view.LayoutInflater;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewConfiguration;
+import android.view.ViewGroup;
+import android.view.ViewStub;
+import android.view.ViewTreeObserver;
 import android.view.WindowManager;
 import android.widget.Button;
 import android.widget.EditText;
 import android.widget.FrameLayout;
 import android.widget.ImageButton;
 import android.widget.LinearLayout;
+import android.widget.TextView;
 import android.widget.Toast;
 import android.os.Handler;
 import android.os.Looper;
 import android.view.inputmethod.InputMethodManager;
 import android.text.TextWatcher;
-import android.media.AudioManager;
 import android.view.KeyEvent;
 
 import androidx.core.app.NotificationCompat;
 
+import com.mediacontrol.floatwidget.core.Debouncer;
+import com.mediacontrol.floatwidget.core.DragClickClassifier;
+import com.mediacontrol.floatwidget.core.HitRegion;
+import com.mediacontrol.floatwidget.core.NotesStore;
+import com.mediacontrol.floatwidget.core.PlayerProfile;
+import com.mediacontrol.floatwidget.core.SeekGestureGeometry;
+
+import java.io.File;
+import java.util.List;
+
 public class FloatingService extends Service {
     private static final String CHANNEL_ID = "FloatingServiceChannel";
     private static final String PREFS_NAME = "FloatingWidgetPrefs";
     private static final String NOTES_KEY = "saved_notes";
     private static final String POSITION_X_KEY = "floating_position_x";
     private static final String POSITION_Y_KEY = "floating_position_y";
+    // 命令流水线各阶段的兜底超时
+    private static final long FOCUS_RELEASE_TIMEOUT_MS = 100;
+    private static final long WINDOW_UPDATE_TIMEOUT_MS = 150;
+    private static final long GESTURE_TIMEOUT_MS = 600;
+    // 无操作超过该时间后自动收起为气泡
+    private static final long AUTO_COLLAPSE_DELAY_MS = 10000;
+    // 媒体按键发送后，等待播放器刷新界面上的播放/暂停按钮再读取状态
+    private static final long PLAY_PAUSE_REFRESH_DELAY_MS = 500;
+    private static final int TIMESTAMP_NOTES_PAGE_SIZE = 20;
+    // 退出时等待笔记写入和压缩完成的上限
+    private static final long NOTES_CLOSE_TIMEOUT_MS = 1000;
+
+    // 进程内的运行标志，供 Quick Settings Tile 读取
+    private static volatile boolean running;
+    // 当前运行的服务实例，仅供诊断对话框在主线程读取统计
+    private static FloatingService instance;
     private WindowManager windowManager;
     private View floatingView;
+    private View bubbleView;
+    private View expandedPanel;
+    private boolean collapsed;
     private WindowManager.LayoutParams params;
+    private WindowDragUpdater dragUpdater;
+    // 编辑框在悬浮窗内的命中区域，仅在布局变化时刷新
+    private final HitRegion editorHitRegion = new HitRegion();
+    // 刷新命中区域时复用的临时矩形
+    private final Rect hitRectScratch = new Rect();
     
     // UI 组件
     private EditText editNotes;
@@ -50,17 +90,74 @@ public class FloatingService extends Service {
     private boolean isPlaying = false; // 播放状态，初始为暂停状态（显示播放按钮）
     private Handler handler = new Handler(Looper.getMainLooper());
     private Runnable playbackStatusChecker;
-    private Runnable saveNotesRunnable;
+    private final Runnable playbackStateRefresh = this::refreshPlaybackState;
+    private MediaCommandExecutor commandExecutor;
+    private MediaSessionTracker mediaSessionTracker;
+    private NotesStore notesStore;
+    private TimestampedNotesDatabase timestampedNotesDb;
+    private TextView tvTimestampNotes;
+    // 分页游标：上一页最后一条的 (位置, id)；搜索模式下为偏移量
+    private long timestampNotesCursor = -1;
+    private long timestampNotesCursorId = -1;
+    private String timestampNotesQuery;
+    private boolean notesLoaded;
+    // 编辑框加载前已读取完成的笔记内容
+    private String loadedNotesText;
+    // 笔记文件读取失败，编辑框保持只读
+    private boolean notesLoadFailed;
+    // 冷启动：位置由后台线程预读，预读完成后才添加窗口
+    private boolean positionLoaded;
+    private int savedX;
+    private int savedY;
+    private boolean viewAttached;
+    private long startCommandNanos;
+    private boolean suppressNotesJournal;
+    private Runnable pendingFocusLoss;
+    private ContentObserver nightModeObserver;
+    private boolean lastDarkTheme;
+    // 非用户操作触发的主线程唤醒次数（用于确认空闲时没有周期性唤醒）
+    private long wakeupCount;
+    // 用户停止输入1秒后自动保存
+    private final Debouncer autoSaveDebouncer = new Debouncer(new HandlerScheduler(handler), 1000, () -> {
+        wakeupCount++;
+        saveNotes();
+    });
+    private final Debouncer autoCollapseDebouncer =
+        new Debouncer(new HandlerScheduler(handler), AUTO_COLLAPSE_DELAY_MS, this::autoCollapse);
 
     @Override
     public void onCreate() {
         super.onCreate();
+        running = true;
+        instance = this;
+        PersistentShell.acquire();
+        FloatingWidgetTileService.requestTileUpdate(this);
+        MediaControlAccessibilityService.onOverlayStateChanged();
         createNotificationChannel();
+        commandExecutor = new MediaCommandExecutor(handler, this::executeMediaCommand);
+        notesStore = new NotesStore(getFilesDir());
+        timestampedNotesDb = new TimestampedNotesDatabase(this);
+        
+        // 冷启动时与视图创建并行读取位置和笔记
+        preloadFloatingPosition();
+        loadSavedNotes();
+        
+        // 播放状态由媒体会话推送，无需轮询或遍历界面
+        mediaSessionTracker = new MediaSessionTracker(this, playing -> {
+            if (isPlaying != playing) {
+                isPlaying = playing;
+                updatePlayPauseButton();
+            }
+        });
     }
 
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
+        // 每次启动时尝试绑定媒体会话（用户可能刚授予通知使用权）
+        mediaSessionTracker.start();
+        
         if (floatingView == null) {
+            startCommandNanos = System.nanoTime();
             createFloatingView();
         }
         
@@ -95,48 +192,190 @@ public class FloatingService extends Service {
                 PixelFormat.TRANSLUCENT);
 
         params.gravity = Gravity.TOP | Gravity.START;
-        
-        // 恢复保存的位置，如果没有保存的位置则使用默认值
-        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        params.x = prefs.getInt(POSITION_X_KEY, 0);
-        params.y = prefs.getInt(POSITION_Y_KEY, 100);
 
-        windowManager.addView(floatingView, params);
+        bubbleView = floatingView.findViewById(R.id.btn_bubble);
+        expandedPanel = floatingView.findViewById(R.id.expanded_panel);
+        bubbleView.setOnClickListener(v -> setCollapsed(false));
 
         setupButtons();
         setupDragListener();
+        setupHitRegionCache();
+        
+        // 设置配置变更监听器
+        setupConfigurationListener();
+        
+        if (positionLoaded) {
+            attachFloatingView();
+        }
+    }
+
+    /**
+     * 在后台线程读取保存的位置（首次读取SharedPreferences需要访问磁盘）
+     */
+    private void preloadFloatingPosition() {
+        new Thread(() -> {
+            SharedPreferences prefs = getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            int x = prefs.getInt(POSITION_X_KEY, 0);
+            int y = prefs.getInt(POSITION_Y_KEY, 100);
+            handler.post(() -> {
+                savedX = x;
+                savedY = y;
+                positionLoaded = true;
+                if (floatingView != null && !viewAttached) {
+                    attachFloatingView();
+                }
+            });
+        }, "FloatingPrefsPreload").start();
+    }
+
+    /**
+     * 按保存的位置添加悬浮窗，此时只有按钮栏，编辑框在首帧之后加载
+     */
+    private void attachFloatingView() {
+        params.x = savedX;
+        params.y = savedY;
+        windowManager.addView(floatingView, params);
+        viewAttached = true;
+        dragUpdater = new WindowDragUpdater(windowManager, floatingView, params);
+        trackOverlayFrames();
+        awaitFirstFrame();
+        OverlayModeStats.enterMode(OverlayModeStats.MODE_EXPANDED);
+        noteUserActivity();
+    }
+
+    /**
+     * 按模式统计悬浮窗的重绘次数和窗口尺寸
+     */
+    private void trackOverlayFrames() {
+        floatingView.getViewTreeObserver().addOnDrawListener(OverlayModeStats::onDraw);
+        floatingView.addOnLayoutChangeListener((v, left, top, right, bottom, oldLeft, oldTop, oldRight, oldBottom) -> {
+            if (right - left != oldRight - oldLeft || bottom - top != oldBottom - oldTop) {
+                OverlayModeStats.onSizeChanged(right - left, bottom - top);
+            }
+        });
+    }
+
+    /**
+     * 用户操作悬浮窗，重新开始自动收起计时
+     */
+    private void noteUserActivity() {
+        if (!collapsed) {
+            autoCollapseDebouncer.trigger();
+        }
+    }
+
+    private void autoCollapse() {
+        // 正在输入笔记时不收起
+        if (editNotes != null && editNotes.hasFocus()) {
+            autoCollapseDebouncer.trigger();
+            return;
+        }
+        setCollapsed(true);
+    }
+
+    /**
+     * 切换收起/展开：收起时窗口只保留气泡大小，减少叠加在视频上需要混合的面积
+     * 可见性、宽度和尚未提交的拖拽位置合并为一次 updateViewLayout
+     */
+    private void setCollapsed(boolean collapse) {
+        if (collapsed == collapse || !viewAttached) {
+            return;
+        }
+        collapsed = collapse;
+        if (collapse) {
+            autoCollapseDebouncer.cancel();
+        }
+        dragUpdater.mergePending();
+        bubbleView.setVisibility(collapse ? View.VISIBLE : View.GONE);
+        expandedPanel.setVisibility(collapse ? View.GONE : View.VISIBLE);
+        params.width = collapse ? WindowManager.LayoutParams.WRAP_CONTENT : WindowManager.LayoutParams.MATCH_PARENT;
+        try {
+            windowManager.updateViewLayout(floatingView, params);
+        } catch (Exception e) {
+            AppLog.e("FloatingService", "切换悬浮窗模式失败", e);
+        }
+        OverlayModeStats.enterMode(collapse ? OverlayModeStats.MODE_COLLAPSED : OverlayModeStats.MODE_EXPANDED);
+        AppLog.d("FloatingService", "悬浮窗已{}", collapse ? "收起" : "展开");
+        noteUserActivity();
+    }
+
+    private void awaitFirstFrame() {
+        floatingView.getViewTreeObserver().addOnDrawListener(new ViewTreeObserver.OnDrawListener() {
+            private boolean drawn;
+
+            @Override
+            public void onDraw() {
+                if (drawn) {
+                    return;
+                }
+                drawn = true;
+                // 绘制回调中不能移除监听器，转到下一个消息处理
+                // 添加时窗口尚未关联，需从视图重新获取合并后的 ViewTreeObserver
+                ViewTreeObserver.OnDrawListener listener = this;
+                handler.post(() -> {
+                    if (floatingView == null) {
+                        return;
+                    }
+                    floatingView.getViewTreeObserver().removeOnDrawListener(listener);
+                    onFirstFrame();
+                });
+            }
+        });
+    }
+
+    /**
+     * 首帧已绘制：记录冷启动耗时，再加载编辑框和同步播放状态
+     */
+    private void onFirstFrame() {
+        long elapsedNanos = System.nanoTime() - startCommandNanos;
+        LatencyMetrics.FIRST_FRAME.recordNanos(elapsedNanos);
+        AppLog.i("FloatingService", "悬浮窗首帧耗时: {}ms", elapsedNanos / 1000000);
+        
+        inflateEditor();
+        
+        // 同步播放状态可能需要遍历无障碍节点树，放到编辑框加载之后的消息中
+        handler.post(() -> {
+            if (floatingView == null) {
+                return;
+            }
+            syncPlaybackStatus();
+            updatePlayPauseButton();
+        });
+    }
+
+    /**
+     * 加载编辑框（ViewStub），并填入已读取的笔记
+     */
+    private void inflateEditor() {
+        ViewStub stub = floatingView.findViewById(R.id.stub_editor);
+        editTextContainer = (FrameLayout) stub.inflate();
+        editNotes = editTextContainer.findViewById(R.id.edit_notes);
+        
+        // 设置EditText为简单模式
+        setupSimpleEditText();
+        setupEditorListeners();
         
         // 应用系统主题样式
         applySystemTheme();
         
-        // 设置配置变更监听器
-        setupConfigurationListener();
+        applyLoadedNotes();
     }
 
     private void setupButtons() {
         playPauseBtn = floatingView.findViewById(R.id.btn_play_pause);
         ImageButton rewindBtn = floatingView.findViewById(R.id.btn_rewind);
-        editNotes = floatingView.findViewById(R.id.edit_notes);
-        editTextContainer = floatingView.findViewById(R.id.edit_text_container);
         unfocusBtn = floatingView.findViewById(R.id.btn_unfocus);
         closeBtn = floatingView.findViewById(R.id.btn_close);
         
-        // 初始化播放按钮状态 - 先同步真实状态
-        syncPlaybackStatus();
+        // 初始化播放按钮状态，真实状态在首帧之后同步
         updatePlayPauseButton();
         
-        // 加载保存的文本内容
-        loadSavedNotes();
-        
-        // 设置EditText为简单模式
-        setupSimpleEditText();
-        
         // 暂时禁用自动状态检测，使用手动切换更可靠
         // startPlaybackStatusMonitoring();
 
         // 添加长按功能来手动同步状态
         playPauseBtn.setOnLongClickListener(v -> {
-            android.util.Log.d("FloatingService", "播放/暂停按钮长按 - 手动同步状态");
+            AppLog.d("FloatingService", "播放/暂停按钮长按 - 手动同步状态");
             syncPlaybackStatus();
             updatePlayPauseButton();
             String statusText = isPlaying ? "正在播放 (显示暂停图标)" : "已暂停 (显示播放图标)";
@@ -145,72 +384,27 @@ public class FloatingService extends Service {
         });
         
         playPauseBtn.setOnClickListener(v -> {
-            android.util.Log.d("FloatingService", "播放/暂停按钮点击");
+            AppLog.d("FloatingService", "播放/暂停按钮点击");
             
             // 保存当前输入状态
-            boolean hadEditTextFocus = editNotes.hasFocus();
+            boolean hadEditTextFocus = editNotes != null && editNotes.hasFocus();
             boolean wasKeyboardVisible = isKeyboardVisible();
             
-            android.util.Log.d("FloatingService", "操作前状态 - 焦点: " + hadEditTextFocus + ", 键盘: " + wasKeyboardVisible);
+            AppLog.d("FloatingService", "操作前状态 - 焦点: {}, 键盘: {}", hadEditTextFocus, wasKeyboardVisible);
             
-            // 临时设置悬浮窗为不可触摸，确保不会干扰媒体按键传递
-            makeFloatingWindowNonTouchable();
-            
-            // 播放/暂停使用媒体按键API
-            new Thread(() -> {
-                try {
-                    // 临时清除焦点，确保媒体按键发送到正确的应用
-                    if (hadEditTextFocus) {
-                        handler.post(() -> editNotes.clearFocus());
-                        Thread.sleep(100); // 短暂等待焦点切换
-                    }
-                    
-                    // 短暂延迟确保窗口属性更新完成
-                    Thread.sleep(150);
-                    
-                    // 使用媒体按键API发送播放/暂停命令
-                    boolean success = sendMediaPlayPauseKey();
-                    
-                    // 延迟后恢复悬浮窗状态
-                    Thread.sleep(200);
-                    
-                    // 在主线程更新UI和恢复状态
-                    handler.post(() -> {
-                        restoreFloatingWindowTouchable();
-                        
-                        if (success) {
-                            // 直接切换状态
-                            isPlaying = !isPlaying;
-                            updatePlayPauseButton();
-                            android.util.Log.d("FloatingService", "媒体按键发送成功，播放状态: " + (isPlaying ? "播放中" : "暂停"));
-                        } else {
-                            android.util.Log.e("FloatingService", "媒体按键发送失败");
-                        }
-                        
-                        // 恢复输入状态
-                        restoreInputState(hadEditTextFocus, wasKeyboardVisible);
-                    });
-                } catch (Exception e) {
-                    android.util.Log.e("FloatingService", "媒体按键执行异常", e);
-                    
-                    // 异常时也要恢复状态
-                    handler.post(() -> {
-                        restoreFloatingWindowTouchable();
-                        restoreInputState(hadEditTextFocus, wasKeyboardVisible);
-                    });
-                }
-            }).start();
+            // 交给命令执行器按顺序执行
+            commandExecutor.submitPlayPause(hadEditTextFocus, wasKeyboardVisible);
         });
         
-        // 为回退按钮添加长按功能，显示服务状态和设置跳转
+        // 为回退按钮添加长按功能，显示服务状态和设置跳转；详细统计和日志在主界面的性能诊断中查看
         rewindBtn.setOnLongClickListener(v -> {
             MediaControlAccessibilityService accessibilityService = 
                 MediaControlAccessibilityService.getInstance();
             
             if (accessibilityService != null) {
-                boolean isYouTubeActive = accessibilityService.isYouTubeInForeground();
-                String statusMsg = "无障碍服务: ✓ 已启用\nYouTube状态: " + 
-                    (isYouTubeActive ? "✓ 在前台" : "❌ 不在前台");
+                PlayerProfile activeProfile = accessibilityService.getActiveProfile();
+                String statusMsg = "无障碍服务: ✓ 已启用\n前台播放器: " + 
+                    (activeProfile != null ? "✓ " + activeProfile.name : "❌ 无");
                 Toast.makeText(this, statusMsg, Toast.LENGTH_LONG).show();
             } else {
                 // 无障碍服务未启用，提供跳转到设置
@@ -228,7 +422,7 @@ public class FloatingService extends Service {
                             Toast.makeText(this, "请找到并开启\"媒体控制悬浮窗\"无障碍服务", Toast.LENGTH_LONG).show();
                         }, 1000);
                     } catch (Exception e) {
-                        android.util.Log.e("FloatingService", "跳转到无障碍设置失败", e);
+                        AppLog.e("FloatingService", "跳转到无障碍设置失败", e);
                         Toast.makeText(this, "请手动进入设置→无障碍→开启悬浮窗服务", Toast.LENGTH_LONG).show();
                     }
                 }, 2000);
@@ -237,46 +431,70 @@ public class FloatingService extends Service {
         });
         
         rewindBtn.setOnClickListener(v -> {
-            android.util.Log.d("FloatingService", "回退按钮点击");
+            AppLog.d("FloatingService", "回退按钮点击");
             
             // 保存当前输入状态
-            boolean hadEditTextFocus = editNotes.hasFocus();
+            boolean hadEditTextFocus = editNotes != null && editNotes.hasFocus();
             boolean wasKeyboardVisible = isKeyboardVisible();
             
-            android.util.Log.d("FloatingService", "回退前状态 - 焦点: " + hadEditTextFocus + ", 键盘: " + wasKeyboardVisible);
+            AppLog.d("FloatingService", "回退前状态 - 焦点: {}, 键盘: {}", hadEditTextFocus, wasKeyboardVisible);
             
-            // 临时清除焦点，让YouTube获得焦点
-            editNotes.clearFocus();
-            
-            // 临时设置悬浮窗为完全不可触摸，实现点击穿透
-            makeFloatingWindowNonTouchable();
-            
-            // 在后台线程发送5秒回退指令
-            new Thread(() -> {
-                try {
-                    // 短暂延迟确保窗口属性更新完成
-                    Thread.sleep(200);
-                    // 执行5秒回退
-                    perform5SecondRewind();
-                    
-                    // 延迟后恢复输入状态和触摸属性
-                    Thread.sleep(300);
-                    handler.post(() -> {
-                        restoreFloatingWindowTouchable();
-                        restoreInputState(hadEditTextFocus, wasKeyboardVisible);
-                        android.util.Log.d("FloatingService", "回退操作完成，悬浮窗状态已恢复");
-                    });
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    // 异常时也要恢复状态
-                    handler.post(() -> {
-                        restoreFloatingWindowTouchable();
-                        restoreInputState(hadEditTextFocus, wasKeyboardVisible);
-                    });
-                }
-            }).start();
+            // 交给命令执行器按顺序执行，连续点击会被合并
+            commandExecutor.submitRewind(hadEditTextFocus, wasKeyboardVisible);
+        });
+        
+        // 时间戳笔记：点击记录光标所在行，长按显示/隐藏当前视频的笔记
+        Button timestampNoteBtn = floatingView.findViewById(R.id.btn_timestamp_note);
+        tvTimestampNotes = floatingView.findViewById(R.id.tv_timestamp_notes);
+        timestampNoteBtn.setOnClickListener(v -> addTimestampedNote());
+        timestampNoteBtn.setOnLongClickListener(v -> {
+            if (tvTimestampNotes.getVisibility() == View.VISIBLE) {
+                tvTimestampNotes.setVisibility(View.GONE);
+            } else {
+                resetTimestampNotesCursor(null);
+                loadNextTimestampedNotesPage();
+            }
+            return true;
+        });
+        // 点击列表加载下一页，长按在所有视频的笔记中搜索光标所在行
+        tvTimestampNotes.setOnClickListener(v -> loadNextTimestampedNotesPage());
+        tvTimestampNotes.setOnLongClickListener(v -> {
+            String query = getCurrentEditorLine();
+            if (query.isEmpty()) {
+                Toast.makeText(this, "请先在光标所在行输入要搜索的内容", Toast.LENGTH_SHORT).show();
+            } else {
+                resetTimestampNotesCursor(query);
+                loadNextTimestampedNotesPage();
+            }
+            return true;
         });
         
+        // 取消聚焦按钮
+        unfocusBtn.setOnClickListener(v -> {
+            AppLog.d("FloatingService", "取消聚焦按钮点击");
+            clearEditTextFocus();
+        });
+        // 长按采集当前窗口的节点树快照，用于离线回放和分析
+        unfocusBtn.setOnLongClickListener(v -> {
+            captureWindowTreeSnapshot();
+            return true;
+        });
+        
+        // 关闭按钮
+        closeBtn.setOnClickListener(v -> {
+            // 保存文本内容
+            saveNotes();
+            // 保存当前悬浮窗位置
+            saveFloatingPosition();
+            // 停止服务并关闭悬浮窗
+            stopSelf();
+        });
+    }
+    
+    /**
+     * 编辑框的焦点和点击处理
+     */
+    private void setupEditorListeners() {
         // 设置EditText获得焦点时的处理
         editNotes.setOnFocusChangeListener((v, hasFocus) -> {
             try {
@@ -288,6 +506,13 @@ public class FloatingService extends Service {
                     // 失去焦点时恢复FLAG_NOT_FOCUSABLE
                     params.flags = params.flags | WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE;
                     windowManager.updateViewLayout(floatingView, params);
+                    
+                    // 通知等待焦点释放的命令
+                    if (pendingFocusLoss != null) {
+                        Runnable signal = pendingFocusLoss;
+                        pendingFocusLoss = null;
+                        signal.run();
+                    }
                 }
             } catch (Exception e) {
                 // 避免窗口更新异常导致卡顿
@@ -299,61 +524,302 @@ public class FloatingService extends Service {
         editNotes.setOnClickListener(v -> {
             editNotes.requestFocus();
         });
+    }
+    
+    /**
+     * 命令执行器在主线程上交来的命令，按阶段执行
+     */
+    private void executeMediaCommand(MediaCommandExecutor.Command command, Runnable onComplete) {
+        if (command.isCancelled() || floatingView == null) {
+            onComplete.run();
+            return;
+        }
+        if (command.type == MediaCommandExecutor.TYPE_PLAY_PAUSE) {
+            runPlayPauseCommand(command, onComplete);
+        } else if (command.type == MediaCommandExecutor.TYPE_REWIND) {
+            runRewindCommand(command, onComplete);
+        } else {
+            onComplete.run();
+        }
+    }
+    
+    /**
+     * 执行播放/暂停命令：释放焦点 → 窗口穿透生效 → 发送按键 → 恢复
+     */
+    private void runPlayPauseCommand(MediaCommandExecutor.Command command, Runnable onComplete) {
+        boolean hadEditTextFocus = command.hadEditTextFocus;
+        boolean wasKeyboardVisible = command.wasKeyboardVisible;
         
+        // 已绑定媒体会话时直接发送到该会话，不涉及焦点和窗口属性，图标由会话回调更新
+        PlayerProfile profile = resolvePlayerProfile();
+        if (mediaSessionTracker.hasController()
+                && (profile == null || profile.playPauseMethod != PlayerProfile.PLAY_PAUSE_KEY)) {
+            long toggleStart = System.nanoTime();
+            boolean success = !command.isCancelled() && mediaSessionTracker.togglePlayPause();
+            LatencyMetrics.SESSION_TOGGLE.recordNanos(System.nanoTime() - toggleStart);
+            AppLog.d("FloatingService", "媒体会话播放/暂停: {}", success);
+            onComplete.run();
+            return;
+        }
         
-        // 取消聚焦按钮
-        unfocusBtn.setOnClickListener(v -> {
-            android.util.Log.d("FloatingService", "取消聚焦按钮点击");
-            clearEditTextFocus();
+        // 临时清除焦点，确保媒体按键发送到正确的应用
+        awaitFocusLoss(() -> {
+            // 临时设置悬浮窗为不可触摸，确保不会干扰媒体按键传递
+            makeFloatingWindowNonTouchable();
+            
+            awaitWindowUpdate(() -> {
+                if (command.isCancelled()) {
+                    finishPlayPauseKey(false, hadEditTextFocus, wasKeyboardVisible, onComplete);
+                    return;
+                }
+                // 按键在后台线程发送，完成后回到主线程恢复悬浮窗
+                AppLog.d("FloatingService", "发送媒体播放/暂停按键");
+                KeyInjectionDispatcher.getInstance(this).injectAsync(KeyEvent.KEYCODE_MEDIA_PLAY_PAUSE, 1,
+                    success -> finishPlayPauseKey(success, hadEditTextFocus, wasKeyboardVisible, onComplete));
+            });
         });
+    }
+    
+    /**
+     * 媒体按键发送结束（主线程）：恢复悬浮窗和输入状态，更新图标
+     */
+    private void finishPlayPauseKey(boolean success, boolean hadEditTextFocus, boolean wasKeyboardVisible,
+                                    Runnable onComplete) {
+        if (floatingView == null) {
+            onComplete.run();
+            return;
+        }
+        long restoreStart = System.nanoTime();
+        restoreFloatingWindowTouchable();
         
-        // 关闭按钮
-        closeBtn.setOnClickListener(v -> {
-            // 保存文本内容
-            saveNotes();
-            // 保存当前悬浮窗位置
-            saveFloatingPosition();
-            // 停止服务并关闭悬浮窗
-            stopSelf();
-        });
+        if (success) {
+            // 按键是否生效、生效几次都无法从发送结果得知，图标以重新读取的播放器状态为准
+            // 会话状态在发送时已等待过确认；界面检测要等播放器刷新按钮后再读
+            if (mediaSessionTracker.hasController()) {
+                refreshPlaybackState();
+            } else {
+                handler.removeCallbacks(playbackStateRefresh);
+                handler.postDelayed(playbackStateRefresh, PLAY_PAUSE_REFRESH_DELAY_MS);
+            }
+            AppLog.d("FloatingService", "媒体按键发送成功");
+        } else {
+            AppLog.e("FloatingService", "媒体按键发送失败");
+        }
+        
+        // 恢复输入状态
+        restoreInputState(hadEditTextFocus, wasKeyboardVisible);
+        LatencyMetrics.RESTORE.recordNanos(System.nanoTime() - restoreStart);
+        onComplete.run();
     }
     
     /**
-     * 发送媒体播放/暂停按键
+     * 执行回退命令：释放焦点 → 窗口穿透生效 → 手势完成 → 恢复
      */
-    private boolean sendMediaPlayPauseKey() {
-        try {
-            android.util.Log.d("FloatingService", "发送媒体播放/暂停按键");
+    private void runRewindCommand(MediaCommandExecutor.Command command, Runnable onComplete) {
+        boolean hadEditTextFocus = command.hadEditTextFocus;
+        boolean wasKeyboardVisible = command.wasKeyboardVisible;
+        
+        // 临时清除焦点，让播放器获得焦点
+        awaitFocusLoss(() -> {
+            // 临时设置悬浮窗为完全不可触摸，实现点击穿透
+            makeFloatingWindowNonTouchable();
             
-            AudioManager audioManager = (AudioManager) getSystemService(Context.AUDIO_SERVICE);
-            if (audioManager != null) {
-                // 创建播放/暂停按键事件
-                KeyEvent downEvent = new KeyEvent(KeyEvent.ACTION_DOWN, KeyEvent.KEYCODE_MEDIA_PLAY_PAUSE);
-                KeyEvent upEvent = new KeyEvent(KeyEvent.ACTION_UP, KeyEvent.KEYCODE_MEDIA_PLAY_PAUSE);
-                
-                // 发送按键事件
-                audioManager.dispatchMediaKeyEvent(downEvent);
-                audioManager.dispatchMediaKeyEvent(upEvent);
-                
-                android.util.Log.d("FloatingService", "媒体按键事件已发送");
+            // 合并后的多次回退在一次手势中完成
+            int taps = command.isCancelled() ? 0 : command.getRepeat();
+            awaitWindowUpdate(() -> performRewind(taps, () -> {
+                // 恢复输入状态和触摸属性
+                long restoreStart = System.nanoTime();
+                restoreFloatingWindowTouchable();
+                restoreInputState(hadEditTextFocus, wasKeyboardVisible);
+                LatencyMetrics.RESTORE.recordNanos(System.nanoTime() - restoreStart);
+                AppLog.d("FloatingService", "回退操作完成，悬浮窗状态已恢复");
+                onComplete.run();
+            }));
+        });
+    }
+    
+    /**
+     * 清除EditText焦点，并在焦点真正释放后进入下一阶段
+     */
+    private void awaitFocusLoss(Runnable next) {
+        if (editNotes == null || !editNotes.hasFocus()) {
+            next.run();
+            return;
+        }
+        StageGate gate = StageGate.open(handler, "焦点释放", LatencyMetrics.FOCUS_RELEASE, FOCUS_RELEASE_TIMEOUT_MS, next);
+        pendingFocusLoss = gate;
+        editNotes.clearFocus();
+        if (!editNotes.hasFocus()) {
+            gate.run();
+        }
+    }
+    
+    /**
+     * 等待窗口属性变更生效（下一次视图遍历的 OnPreDraw 回调）后进入下一阶段
+     */
+    private void awaitWindowUpdate(Runnable next) {
+        StageGate gate = StageGate.open(handler, "窗口属性", LatencyMetrics.WINDOW_UPDATE, WINDOW_UPDATE_TIMEOUT_MS, next);
+        floatingView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                floatingView.getViewTreeObserver().removeOnPreDrawListener(this);
+                gate.run();
                 return true;
-            } else {
-                android.util.Log.e("FloatingService", "AudioManager为null");
-                return false;
             }
-        } catch (Exception e) {
-            android.util.Log.e("FloatingService", "发送媒体按键时出错", e);
-            return false;
+        });
+    }
+    
+    
+    /**
+     * 将光标所在行记录为当前视频当前位置的笔记
+     */
+    private void addTimestampedNote() {
+        String videoId = mediaSessionTracker.getCurrentVideoId();
+        long positionMs = mediaSessionTracker.getCurrentPositionMs();
+        if (videoId == null || positionMs < 0) {
+            Toast.makeText(this, "无法获取当前视频，请授予通知使用权", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        
+        String line = getCurrentEditorLine();
+        if (line.isEmpty()) {
+            Toast.makeText(this, "请先在光标所在行输入笔记", Toast.LENGTH_SHORT).show();
+            return;
         }
+        
+        timestampedNotesDb.addNote(videoId, positionMs, line);
+        Toast.makeText(this, "已记录 " + formatPosition(positionMs), Toast.LENGTH_SHORT).show();
     }
     
+    /**
+     * 回到第一页；query 不为null时切换为全文搜索模式
+     */
+    private void resetTimestampNotesCursor(String query) {
+        timestampNotesQuery = query;
+        timestampNotesCursor = -1;
+        timestampNotesCursorId = -1;
+    }
+    
+    /**
+     * 加载下一页时间戳笔记（当前视频或搜索结果），到末尾后从头开始
+     */
+    private void loadNextTimestampedNotesPage() {
+        if (timestampNotesQuery != null) {
+            int offset = (int) Math.max(timestampNotesCursor, 0);
+            timestampedNotesDb.search(timestampNotesQuery, offset, TIMESTAMP_NOTES_PAGE_SIZE, notes -> {
+                showTimestampedNotesPage(notes, offset == 0 ? "没有找到匹配的笔记" : "已到末尾，点击从头开始", true);
+                if (!notes.isEmpty()) {
+                    timestampNotesCursor = offset + notes.size();
+                }
+            });
+            return;
+        }
+        
+        String videoId = mediaSessionTracker.getCurrentVideoId();
+        if (videoId == null) {
+            Toast.makeText(this, "无法获取当前视频，请授予通知使用权", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        
+        boolean firstPage = timestampNotesCursor < 0;
+        timestampedNotesDb.queryByVideo(videoId, timestampNotesCursor, timestampNotesCursorId,
+                TIMESTAMP_NOTES_PAGE_SIZE, notes -> {
+            showTimestampedNotesPage(notes, firstPage ? "当前视频还没有时间戳笔记" : "已到末尾，点击从头开始", false);
+            if (!notes.isEmpty()) {
+                TimestampedNotesDatabase.Note last = notes.get(notes.size() - 1);
+                timestampNotesCursor = last.positionMs;
+                timestampNotesCursorId = last.id;
+            }
+        });
+    }
+    
+    /**
+     * 显示一页笔记，空页时显示 emptyText 并把游标重置到第一页
+     */
+    private void showTimestampedNotesPage(List<TimestampedNotesDatabase.Note> notes, String emptyText, boolean withVideoId) {
+        if (tvTimestampNotes == null) {
+            return;
+        }
+        if (notes.isEmpty()) {
+            tvTimestampNotes.setText(emptyText);
+            timestampNotesCursor = -1;
+            timestampNotesCursorId = -1;
+        } else {
+            StringBuilder sb = new StringBuilder();
+            for (TimestampedNotesDatabase.Note note : notes) {
+                if (sb.length() > 0) {
+                    sb.append('\n');
+                }
+                if (withVideoId) {
+                    sb.append(note.videoId).append(' ');
+                }
+                sb.append(formatPosition(note.positionMs)).append("  ").append(note.text);
+            }
+            tvTimestampNotes.setText(sb);
+        }
+        tvTimestampNotes.setVisibility(View.VISIBLE);
+    }
+    
+    /**
+     * 获取编辑框中光标所在行的文本
+     */
+    private String getCurrentEditorLine() {
+        if (editNotes == null) {
+            return "";
+        }
+        CharSequence text = editNotes.getText();
+        int cursor = Math.max(0, Math.min(editNotes.getSelectionStart(), text.length()));
+        int start = cursor;
+        while (start > 0 && text.charAt(start - 1) != '\n') {
+            start--;
+        }
+        int end = cursor;
+        while (end < text.length() && text.charAt(end) != '\n') {
+            end++;
+        }
+        return text.subSequence(start, end).toString().trim();
+    }
+    
+    private static String formatPosition(long positionMs) {
+        long totalSeconds = positionMs / 1000;
+        long hours = totalSeconds / 3600;
+        long minutes = (totalSeconds % 3600) / 60;
+        long seconds = totalSeconds % 60;
+        if (hours > 0) {
+            return String.format(java.util.Locale.US, "%d:%02d:%02d", hours, minutes, seconds);
+        }
+        return String.format(java.util.Locale.US, "%d:%02d", minutes, seconds);
+    }
+    
+    /**
+     * 在后台线程采集当前活动窗口的节点树，写入 snapshots 目录
+     */
+    private void captureWindowTreeSnapshot() {
+        MediaControlAccessibilityService accessibilityService =
+            MediaControlAccessibilityService.getInstance();
+        if (accessibilityService == null) {
+            Toast.makeText(this, "请在设置中启用悬浮窗无障碍服务", Toast.LENGTH_LONG).show();
+            return;
+        }
+        File directory = getExternalFilesDir("snapshots");
+        if (directory == null) {
+            directory = new File(getFilesDir(), "snapshots");
+        }
+        final File snapshotDirectory = directory;
+        new Thread(() -> {
+            File file = accessibilityService.captureActiveWindowTree(snapshotDirectory);
+            String message = file != null ? "节点树已保存: " + file.getName() : "节点树采集失败";
+            handler.post(() -> Toast.makeText(this, message, Toast.LENGTH_LONG).show());
+        }, "WindowTreeCapture").start();
+    }
+
     /**
      * 清除EditText的焦点并隐藏输入法
      */
     private void clearEditTextFocus() {
         try {
             if (editNotes != null && editNotes.hasFocus()) {
-                android.util.Log.d("FloatingService", "清除EditText焦点");
+                AppLog.d("FloatingService", "清除EditText焦点");
                 
                 // 清除焦点
                 editNotes.clearFocus();
@@ -368,48 +834,106 @@ public class FloatingService extends Service {
                 params.flags = params.flags | WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE;
                 windowManager.updateViewLayout(floatingView, params);
                 
-                android.util.Log.d("FloatingService", "已清除焦点并隐藏输入法");
+                AppLog.d("FloatingService", "已清除焦点并隐藏输入法");
             } else {
-                android.util.Log.d("FloatingService", "EditText没有焦点，无需操作");
+                AppLog.d("FloatingService", "EditText没有焦点，无需操作");
             }
         } catch (Exception e) {
-            android.util.Log.e("FloatingService", "清除焦点时出错", e);
+            AppLog.e("FloatingService", "清除焦点时出错", e);
         }
     }
     
     /**
-     * 执行5秒回退操作（仅使用无障碍服务手势）
+     * 前台播放器的配置：优先取无障碍服务识别的前台应用，否则取已绑定媒体会话的应用
      */
-    private void perform5SecondRewind() {
-        android.util.Log.d("FloatingService", "执行5秒回退（无障碍手势模式）");
-        
-        // 使用双击手势（YouTube标准的5秒回退）
+    private PlayerProfile resolvePlayerProfile() {
         MediaControlAccessibilityService accessibilityService = 
             MediaControlAccessibilityService.getInstance();
-        
-        if (accessibilityService != null) {
-            android.util.Log.d("FloatingService", "无障碍服务实例获取成功");
-            
-            // 检查YouTube是否在前台
-            boolean isYouTubeActive = accessibilityService.isYouTubeInForeground();
-            android.util.Log.d("FloatingService", "YouTube在前台: " + isYouTubeActive);
-            
-            if (isYouTubeActive) {
-                boolean success = accessibilityService.performLeftDoubleClick();
-                if (success) {
-                    android.util.Log.d("FloatingService", "5秒回退：双击手势成功");
-                    handler.post(() -> Toast.makeText(this, "回退5秒", Toast.LENGTH_SHORT).show());
-                } else {
-                    android.util.Log.w("FloatingService", "5秒回退：双击手势执行失败");
-                    handler.post(() -> Toast.makeText(this, "回退手势失败", Toast.LENGTH_SHORT).show());
-                }
+        PlayerProfile profile = accessibilityService != null ? accessibilityService.getActiveProfile() : null;
+        if (profile == null && mediaSessionTracker.hasController()) {
+            profile = PlayerProfiles.get(this).get(mediaSessionTracker.getPackageName());
+        }
+        return profile;
+    }
+    
+    /**
+     * 按前台播放器配置的跳转方式回退 taps 步，完成或失败后调用 onDone
+     */
+    private void performRewind(int taps, Runnable onDone) {
+        if (taps <= 0) {
+            onDone.run();
+            return;
+        }
+        PlayerProfile profile = resolvePlayerProfile();
+        if (profile == null) {
+            if (MediaControlAccessibilityService.getInstance() == null) {
+                AppLog.e("FloatingService", "无障碍服务不可用 - 请在设置中启用悬浮窗无障碍服务");
+                handler.post(() -> Toast.makeText(this, "请在设置中启用悬浮窗无障碍服务", Toast.LENGTH_LONG).show());
             } else {
-                android.util.Log.w("FloatingService", "YouTube不在前台，无法执行回退操作");
-                handler.post(() -> Toast.makeText(this, "请先打开YouTube应用", Toast.LENGTH_SHORT).show());
+                AppLog.w("FloatingService", "前台不是支持的播放器，无法执行回退操作");
+                handler.post(() -> Toast.makeText(this, "请先打开支持的播放器", Toast.LENGTH_SHORT).show());
             }
+            onDone.run();
+            return;
+        }
+        int seconds = taps * profile.seekStepSeconds;
+        AppLog.d("FloatingService", "执行回退: {}, 次数: {}, 方式: {}", profile.name, taps, profile.seekMethod);
+        
+        if (profile.seekMethod == PlayerProfile.SEEK_DOUBLE_TAP) {
+            performGestureRewind(taps, seconds, onDone);
+            return;
+        }
+        
+        if (profile.seekMethod == PlayerProfile.SEEK_KEY) {
+            // 按键可能经由 shell 发送而阻塞，在后台线程发送，结果回到主线程
+            KeyInjectionDispatcher.getInstance(this).injectAsync(profile.seekKeyCode, taps, success -> {
+                showRewindResult(success, seconds, profile);
+                onDone.run();
+            });
+            return;
+        }
+        
+        // 只向前台播放器自己的会话发送跳转，避免跳到其他应用的会话
+        boolean success = profile.packageName.equals(mediaSessionTracker.getPackageName())
+            && mediaSessionTracker.seekBy(-seconds * 1000L);
+        showRewindResult(success, seconds, profile);
+        onDone.run();
+    }
+    
+    private void showRewindResult(boolean success, int seconds, PlayerProfile profile) {
+        if (success) {
+            Toast.makeText(this, "回退" + seconds + "秒", Toast.LENGTH_SHORT).show();
         } else {
-            android.util.Log.e("FloatingService", "无障碍服务不可用 - 请在设置中启用悬浮窗无障碍服务");
+            AppLog.w("FloatingService", "回退失败: {}", profile);
+            Toast.makeText(this, "回退失败", Toast.LENGTH_SHORT).show();
+        }
+    }
+    
+    /**
+     * 通过无障碍手势在播放器左侧连击回退，手势完成或失败后调用 onDone
+     */
+    private void performGestureRewind(int taps, int seconds, Runnable onDone) {
+        MediaControlAccessibilityService accessibilityService = 
+            MediaControlAccessibilityService.getInstance();
+        if (accessibilityService == null || Build.VERSION.SDK_INT < Build.VERSION_CODES.N) {
+            AppLog.e("FloatingService", "无障碍服务不可用 - 请在设置中启用悬浮窗无障碍服务");
             handler.post(() -> Toast.makeText(this, "请在设置中启用悬浮窗无障碍服务", Toast.LENGTH_LONG).show());
+            onDone.run();
+            return;
+        }
+        
+        long timeoutMs = GESTURE_TIMEOUT_MS + SeekGestureGeometry.multiTapDurationMs(taps);
+        StageGate gestureGate = StageGate.open(handler, "回退手势", LatencyMetrics.REWIND_GESTURE, timeoutMs, onDone);
+        boolean accepted = accessibilityService.performLeftMultiTap(taps, (completed, waitMs, runMs) -> {
+            // 按手势的实际结果提示
+            AppLog.d("FloatingService", "回退手势结束，完成: {}, 排队: {}ms, 执行: {}ms", completed, waitMs, runMs);
+            Toast.makeText(this, completed ? "回退" + seconds + "秒" : "回退手势被取消", Toast.LENGTH_SHORT).show();
+            gestureGate.run();
+        });
+        if (!accepted) {
+            AppLog.w("FloatingService", "回退：连击手势未能提交");
+            handler.post(() -> Toast.makeText(this, "回退手势失败", Toast.LENGTH_SHORT).show());
+            gestureGate.run();
         }
     }
     
@@ -439,12 +963,19 @@ public class FloatingService extends Service {
                 
                 @Override
                 public void onTextChanged(CharSequence s, int start, int before, int count) {
+                    // 记录编辑增量，保存时只追加增量
+                    if (!suppressNotesJournal && notesLoaded) {
+                        notesStore.recordEdit(start, before, s.subSequence(start, start + count));
+                    }
                 }
                 
                 @Override
                 public void afterTextChanged(android.text.Editable s) {
                     // 延迟保存文本内容（避免频繁保存）
-                    scheduleAutoSave();
+                    if (!suppressNotesJournal) {
+                        scheduleAutoSave();
+                        noteUserActivity();
+                    }
                 }
             });
         }
@@ -461,7 +992,7 @@ public class FloatingService extends Service {
                 return imm.isActive(editNotes);
             }
         } catch (Exception e) {
-            android.util.Log.e("FloatingService", "检查键盘状态时出错", e);
+            AppLog.e("FloatingService", "检查键盘状态时出错", e);
         }
         return false;
     }
@@ -471,7 +1002,7 @@ public class FloatingService extends Service {
      */
     private void restoreInputState(boolean hadFocus, boolean wasKeyboardVisible) {
         try {
-            android.util.Log.d("FloatingService", "恢复输入状态 - 焦点: " + hadFocus + ", 键盘: " + wasKeyboardVisible);
+            AppLog.d("FloatingService", "恢复输入状态 - 焦点: {}, 键盘: {}", hadFocus, wasKeyboardVisible);
             
             if (hadFocus && editNotes != null) {
                 // 恢复焦点
@@ -498,7 +1029,7 @@ public class FloatingService extends Service {
             windowManager.updateViewLayout(floatingView, params);
             
         } catch (Exception e) {
-            android.util.Log.e("FloatingService", "恢复输入状态时出错", e);
+            AppLog.e("FloatingService", "恢复输入状态时出错", e);
         }
     }
     
@@ -507,7 +1038,7 @@ public class FloatingService extends Service {
      */
     private void makeFloatingWindowNonTouchable() {
         try {
-            android.util.Log.d("FloatingService", "设置悬浮窗为不可触摸状态");
+            AppLog.d("FloatingService", "设置悬浮窗为不可触摸状态");
             
             // 添加 FLAG_NOT_TOUCHABLE 标志，使悬浮窗完全透明于触摸事件
             params.flags = params.flags | WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE;
@@ -515,9 +1046,9 @@ public class FloatingService extends Service {
             
             windowManager.updateViewLayout(floatingView, params);
             
-            android.util.Log.d("FloatingService", "悬浮窗已设置为点击穿透模式");
+            AppLog.d("FloatingService", "悬浮窗已设置为点击穿透模式");
         } catch (Exception e) {
-            android.util.Log.e("FloatingService", "设置悬浮窗不可触摸时出错", e);
+            AppLog.e("FloatingService", "设置悬浮窗不可触摸时出错", e);
         }
     }
     
@@ -526,12 +1057,12 @@ public class FloatingService extends Service {
      */
     private void restoreFloatingWindowTouchable() {
         try {
-            android.util.Log.d("FloatingService", "恢复悬浮窗触摸功能");
+            AppLog.d("FloatingService", "恢复悬浮窗触摸功能");
             
             // 移除 FLAG_NOT_TOUCHABLE 标志，恢复正常触摸
             params.flags = params.flags & ~WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE;
             // 保持 FLAG_NOT_FOCUSABLE，除非 EditText 需要焦点
-            if (!editNotes.hasFocus()) {
+            if (editNotes == null || !editNotes.hasFocus()) {
                 params.flags = params.flags | WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE;
             } else {
                 params.flags = params.flags & ~WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE;
@@ -539,9 +1070,9 @@ public class FloatingService extends Service {
             
             windowManager.updateViewLayout(floatingView, params);
             
-            android.util.Log.d("FloatingService", "悬浮窗触摸功能已恢复");
+            AppLog.d("FloatingService", "悬浮窗触摸功能已恢复");
         } catch (Exception e) {
-            android.util.Log.e("FloatingService", "恢复悬浮窗触摸功能时出错", e);
+            AppLog.e("FloatingService", "恢复悬浮窗触摸功能时出错", e);
         }
     }
     
@@ -557,12 +1088,12 @@ public class FloatingService extends Service {
                 // 正在播放时，显示暂停图标（点击后会暂停）
                 playPauseBtn.setImageResource(R.drawable.ic_pause);
                 playPauseBtn.setContentDescription("暂停");
-                android.util.Log.d("FloatingService", "✓ 正在播放 → 显示暂停图标 (点击后暂停)");
+                AppLog.d("FloatingService", "✓ 正在播放 → 显示暂停图标 (点击后暂停)");
             } else {
                 // 已暂停时，显示播放图标（点击后会播放）
                 playPauseBtn.setImageResource(R.drawable.ic_play);
                 playPauseBtn.setContentDescription("播放");
-                android.util.Log.d("FloatingService", "⏸ 已暂停 → 显示播放图标 (点击后播放)");
+                AppLog.d("FloatingService", "⏸ 已暂停 → 显示播放图标 (点击后播放)");
             }
         }
     }
@@ -574,6 +1105,7 @@ public class FloatingService extends Service {
         playbackStatusChecker = new Runnable() {
             @Override
             public void run() {
+                wakeupCount++;
                 checkPlaybackStatus();
                 handler.postDelayed(this, 2000); // 每2秒检查一次
             }
@@ -588,34 +1120,61 @@ public class FloatingService extends Service {
         // 通过无障碍服务检测播放状态
         MediaControlAccessibilityService accessibilityService = 
             MediaControlAccessibilityService.getInstance();
-        if (accessibilityService != null && accessibilityService.isYouTubeInForeground()) {
-            boolean currentPlayingState = accessibilityService.isYouTubePlaying();
+        if (accessibilityService != null && accessibilityService.isPlayerInForeground()) {
+            boolean currentPlayingState = accessibilityService.isPlayerPlaying();
             if (currentPlayingState != isPlaying) {
                 isPlaying = currentPlayingState;
                 updatePlayPauseButton();
-                android.util.Log.d("FloatingService", "播放状态已同步: " + (isPlaying ? "播放中" : "暂停"));
+                AppLog.d("FloatingService", "播放状态已同步: {}", isPlaying ? "播放中" : "暂停");
             }
         }
     }
     
+    /**
+     * 重新读取播放状态（优先媒体会话，其次无障碍界面检测）并更新图标，状态未知时保持不变
+     */
+    private void refreshPlaybackState() {
+        Boolean playing = mediaSessionTracker.isPlaying();
+        if (playing == null) {
+            MediaControlAccessibilityService accessibilityService =
+                MediaControlAccessibilityService.getInstance();
+            if (accessibilityService != null && accessibilityService.isPlayerInForeground()) {
+                playing = accessibilityService.isPlayerPlaying();
+            }
+        }
+        if (playing != null && playing != isPlaying) {
+            isPlaying = playing;
+            updatePlayPauseButton();
+        }
+        AppLog.d("FloatingService", "播放状态已重新读取: {}", playing);
+    }
+
     /**
      * 同步播放状态（初始化时调用）
      */
     private void syncPlaybackStatus() {
         try {
+            // 优先使用媒体会话的播放状态
+            Boolean sessionPlaying = mediaSessionTracker.isPlaying();
+            if (sessionPlaying != null) {
+                isPlaying = sessionPlaying;
+                AppLog.d("FloatingService", "媒体会话播放状态: {}", isPlaying ? "播放中" : "暂停");
+                return;
+            }
+            
             MediaControlAccessibilityService accessibilityService = 
                 MediaControlAccessibilityService.getInstance();
-            if (accessibilityService != null && accessibilityService.isYouTubeInForeground()) {
-                isPlaying = accessibilityService.isYouTubePlaying();
-                android.util.Log.d("FloatingService", "初始化播放状态: " + (isPlaying ? "播放中" : "暂停"));
+            if (accessibilityService != null && accessibilityService.isPlayerInForeground()) {
+                isPlaying = accessibilityService.isPlayerPlaying();
+                AppLog.d("FloatingService", "初始化播放状态: {}", isPlaying ? "播放中" : "暂停");
             } else {
-                // 如果无法检测到YouTube或无障碍服务不可用，默认为暂停状态
+                // 如果无法检测到播放器或无障碍服务不可用，默认为暂停状态
                 isPlaying = false;
-                android.util.Log.d("FloatingService", "无法检测播放状态，设置为默认暂停状态");
+                AppLog.d("FloatingService", "无法检测播放状态，设置为默认暂停状态");
             }
         } catch (Exception e) {
             isPlaying = false;
-            android.util.Log.e("FloatingService", "同步播放状态时出错，设置为暂停状态", e);
+            AppLog.e("FloatingService", "同步播放状态时出错，设置为暂停状态", e);
         }
     }
     
@@ -633,10 +1192,8 @@ public class FloatingService extends Service {
         floatingView.setOnTouchListener(new View.OnTouchListener() {
             private int initialX;
             private int initialY;
-            private float initialTouchX;
-            private float initialTouchY;
-            private boolean isDragging = false;
-            private static final int DRAG_THRESHOLD = 10; // 拖拽阈值，像素
+            // 拖拽阈值10像素，整体区域不判定点击
+            private final DragClickClassifier classifier = new DragClickClassifier(10, 0);
 
             @Override
             public boolean onTouch(View v, MotionEvent event) {
@@ -649,29 +1206,21 @@ public class FloatingService extends Service {
                     case MotionEvent.ACTION_DOWN:
                         initialX = params.x;
                         initialY = params.y;
-                        initialTouchX = event.getRawX();
-                        initialTouchY = event.getRawY();
-                        isDragging = false;
+                        classifier.onDown(event.getRawX(), event.getRawY(), event.getEventTime());
+                        noteUserActivity();
                         return true;
                     case MotionEvent.ACTION_MOVE:
-                        float deltaX = event.getRawX() - initialTouchX;
-                        float deltaY = event.getRawY() - initialTouchY;
-                        
-                        // 检查是否超过拖拽阈值
-                        if (!isDragging && (Math.abs(deltaX) > DRAG_THRESHOLD || Math.abs(deltaY) > DRAG_THRESHOLD)) {
-                            isDragging = true;
-                        }
-                        
                         // 如果正在拖拽，更新窗口位置
+                        boolean isDragging = classifier.onMove(event.getRawX(), event.getRawY());
                         if (isDragging) {
-                            params.x = initialX + (int) deltaX;
-                            params.y = initialY + (int) deltaY;
-                            windowManager.updateViewLayout(floatingView, params);
+                            dragUpdater.moveTo(initialX + classifier.getDeltaX(), initialY + classifier.getDeltaY());
                         }
                         return isDragging; // 只有在拖拽时才消费事件
                     case MotionEvent.ACTION_UP:
-                        boolean wasDragging = isDragging;
-                        isDragging = false;
+                        boolean wasDragging = classifier.onUp(event.getEventTime()) == DragClickClassifier.RESULT_DRAG_END;
+                        if (wasDragging) {
+                            dragUpdater.flush();
+                        }
                         return wasDragging; // 如果进行了拖拽，消费UP事件防止触发点击
                 }
                 return false;
@@ -686,18 +1235,14 @@ public class FloatingService extends Service {
      * 为按钮区域设置拖拽和点击功能
      */
     private void setupButtonDragAndClick() {
-        // 获取按钮容器（第一个LinearLayout就是按钮容器）
-        LinearLayout buttonContainer = null;
-        View firstChild = ((LinearLayout) floatingView).getChildAt(0);
-        if (firstChild instanceof LinearLayout) {
-            buttonContainer = (LinearLayout) firstChild;
-        }
-        
+        // 按钮容器
+        LinearLayout buttonContainer = floatingView.findViewById(R.id.button_bar);
         if (buttonContainer != null) {
             setupDragAndClickForView(buttonContainer);
         }
         
-        // 为每个按钮单独设置触摸处理
+        // 为每个按钮单独设置触摸处理，收起时的气泡同样可拖动
+        setupDragAndClickForView(bubbleView);
         setupDragAndClickForView(playPauseBtn);
         setupDragAndClickForView(floatingView.findViewById(R.id.btn_rewind));
         setupDragAndClickForView(unfocusBtn);
@@ -705,7 +1250,8 @@ public class FloatingService extends Service {
     }
     
     /**
-     * 为指定视图设置拖拽和点击功能
+     * 为指定视图设置拖拽、点击和长按功能
+     * 监听器在按下时就消费事件，系统不会再识别点击和长按，因此两者都由这里判定后转发给视图
      */
     private void setupDragAndClickForView(View view) {
         if (view == null) return;
@@ -713,11 +1259,16 @@ public class FloatingService extends Service {
         view.setOnTouchListener(new View.OnTouchListener() {
             private int initialX;
             private int initialY;
-            private float initialTouchX;
-            private float initialTouchY;
-            private boolean isDragging = false;
-            private static final int DRAG_THRESHOLD = 15; // 按钮的拖拽阈值稍大一些
-            private long touchStartTime;
+            // 按钮的拖拽阈值稍大一些，按下不足300ms的抬起视为点击
+            private final DragClickClassifier classifier = new DragClickClassifier(15, 300);
+            // 预先创建点击和长按任务，避免每次触摸分配
+            private final Runnable performClick = view::performClick;
+            private final Runnable longPressTask = () -> {
+                if (classifier.onLongPressTimeout()) {
+                    AppLog.d("FloatingService", "按钮长按");
+                    view.performLongClick();
+                }
+            };
 
             @Override
             public boolean onTouch(View v, MotionEvent event) {
@@ -725,40 +1276,41 @@ public class FloatingService extends Service {
                     case MotionEvent.ACTION_DOWN:
                         initialX = params.x;
                         initialY = params.y;
-                        initialTouchX = event.getRawX();
-                        initialTouchY = event.getRawY();
-                        isDragging = false;
-                        touchStartTime = System.currentTimeMillis();
+                        classifier.onDown(event.getRawX(), event.getRawY(), event.getEventTime());
+                        noteUserActivity();
+                        v.removeCallbacks(longPressTask);
+                        if (v.isLongClickable()) {
+                            v.postDelayed(longPressTask, ViewConfiguration.getLongPressTimeout());
+                        }
                         return true;
                     case MotionEvent.ACTION_MOVE:
-                        float deltaX = event.getRawX() - initialTouchX;
-                        float deltaY = event.getRawY() - initialTouchY;
-                        
-                        // 检查是否超过拖拽阈值
-                        if (!isDragging && (Math.abs(deltaX) > DRAG_THRESHOLD || Math.abs(deltaY) > DRAG_THRESHOLD)) {
-                            isDragging = true;
-                            android.util.Log.d("FloatingService", "按钮开始拖拽: " + v.getClass().getSimpleName());
-                        }
+                        boolean wasDragging = classifier.isDragging();
                         
                         // 如果正在拖拽，更新窗口位置
-                        if (isDragging) {
-                            params.x = initialX + (int) deltaX;
-                            params.y = initialY + (int) deltaY;
-                            windowManager.updateViewLayout(floatingView, params);
+                        if (classifier.onMove(event.getRawX(), event.getRawY())) {
+                            if (!wasDragging) {
+                                AppLog.d("FloatingService", "按钮开始拖拽");
+                                v.removeCallbacks(longPressTask);
+                            }
+                            dragUpdater.moveTo(initialX + classifier.getDeltaX(), initialY + classifier.getDeltaY());
                         }
                         return true; // 总是返回true来处理移动事件
                     case MotionEvent.ACTION_UP:
-                        long touchDuration = System.currentTimeMillis() - touchStartTime;
-                        boolean wasDragging = isDragging;
-                        isDragging = false;
-                        
-                        // 如果没有拖拽且触摸时间较短，则执行点击
-                        if (!wasDragging && touchDuration < 300) {
-                            android.util.Log.d("FloatingService", "按钮点击: " + v.getClass().getSimpleName());
-                            // 延迟执行点击，确保拖拽状态已重置
-                            v.postDelayed(() -> v.performClick(), 50);
-                        } else if (wasDragging) {
-                            android.util.Log.d("FloatingService", "按钮拖拽结束: " + v.getClass().getSimpleName());
+                        v.removeCallbacks(longPressTask);
+                        int result = classifier.onUp(event.getEventTime());
+                        if (result == DragClickClassifier.RESULT_DRAG_END) {
+                            dragUpdater.flush();
+                            AppLog.d("FloatingService", "按钮拖拽结束");
+                        } else if (result == DragClickClassifier.RESULT_CLICK) {
+                            // 没有拖拽且触摸时间较短，延迟执行点击，确保拖拽状态已重置
+                            AppLog.d("FloatingService", "按钮点击");
+                            v.postDelayed(performClick, 50);
+                        }
+                        return true;
+                    case MotionEvent.ACTION_CANCEL:
+                        v.removeCallbacks(longPressTask);
+                        if (classifier.onUp(event.getEventTime()) == DragClickClassifier.RESULT_DRAG_END) {
+                            dragUpdater.flush();
                         }
                         return true;
                 }
@@ -767,22 +1319,31 @@ public class FloatingService extends Service {
         });
     }
     
+    /**
+     * 判断触摸点是否落在编辑框内
+     * 使用布局变化时缓存的编辑框区域（悬浮窗坐标系），每次触摸不分配任何对象
+     */
     private boolean isTouchingEditText(MotionEvent event) {
         if (editNotes == null || !editNotes.isShown()) return false;
-        
-        try {
-            int[] location = new int[2];
-            editNotes.getLocationOnScreen(location);
-            
-            float x = event.getRawX();
-            float y = event.getRawY();
-            
-            return x >= location[0] && x <= location[0] + editNotes.getWidth() &&
-                   y >= location[1] && y <= location[1] + editNotes.getHeight();
-        } catch (Exception e) {
-            // 避免计算异常导致卡顿
-            return false;
+        return editorHitRegion.contains(event.getX(), event.getY());
+    }
+    
+    /**
+     * 在布局变化时刷新编辑框的命中区域
+     * 区域以悬浮窗根视图为坐标系，拖动窗口不会使其失效
+     */
+    private void setupHitRegionCache() {
+        floatingView.getViewTreeObserver().addOnGlobalLayoutListener(this::refreshHitRegions);
+    }
+    
+    private void refreshHitRegions() {
+        if (editNotes == null || floatingView == null) {
+            editorHitRegion.setEmpty();
+            return;
         }
+        editNotes.getDrawingRect(hitRectScratch);
+        ((ViewGroup) floatingView).offsetDescendantRectToMyCoords(editNotes, hitRectScratch);
+        editorHitRegion.set(hitRectScratch.left, hitRectScratch.top, hitRectScratch.right, hitRectScratch.bottom);
     }
 
     private void createNotificationChannel() {
@@ -801,62 +1362,75 @@ public class FloatingService extends Service {
      * 延迟自动保存（避免频繁保存）
      */
     private void scheduleAutoSave() {
-        if (handler != null) {
-            // 取消之前的保存任务
-            if (saveNotesRunnable != null) {
-                handler.removeCallbacks(saveNotesRunnable);
-            }
-            
-            // 创建新的保存任务
-            saveNotesRunnable = new Runnable() {
-                @Override
-                public void run() {
-                    saveNotes();
-                }
-            };
-            
-            // 延迟1秒后保存（用户停止输入1秒后自动保存）
-            handler.postDelayed(saveNotesRunnable, 1000);
-        }
+        autoSaveDebouncer.trigger();
     }
 
     /**
-     * 保存笔记文本到SharedPreferences
+     * 将累积的笔记编辑追加写入日志
      */
     private void saveNotes() {
-        if (editNotes != null) {
-            String notes = editNotes.getText().toString();
-            SharedPreferences prefs = getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            SharedPreferences.Editor editor = prefs.edit();
-            editor.putString(NOTES_KEY, notes);
-            editor.apply();
-            android.util.Log.d("FloatingService", "已保存笔记，长度: " + notes.length());
+        if (notesStore != null && notesLoaded) {
+            notesStore.flush();
+            AppLog.d("FloatingService", "已保存笔记编辑");
         }
     }
     
     /**
-     * 从SharedPreferences加载笔记文本
+     * 在后台线程加载笔记，首次运行时从SharedPreferences迁移旧数据
+     * 读取与视图创建并行，结果在编辑框加载后填入
      */
     private void loadSavedNotes() {
-        if (editNotes != null) {
-            SharedPreferences prefs = getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            String savedNotes = prefs.getString(NOTES_KEY, "");
-            editNotes.setText(savedNotes);
-            android.util.Log.d("FloatingService", "已加载笔记，长度: " + savedNotes.length());
+        notesStore.load(() -> getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).getString(NOTES_KEY, ""),
+            handler::post, (text, importedLegacy, error) -> {
+                if (error != null) {
+                    notesLoadFailed = true;
+                    Toast.makeText(this, "笔记文件读取失败，编辑已禁用以免覆盖原文件", Toast.LENGTH_LONG).show();
+                } else if (importedLegacy) {
+                    getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit().remove(NOTES_KEY).apply();
+                    AppLog.d("FloatingService", "已从SharedPreferences迁移笔记");
+                }
+                loadedNotesText = text;
+                applyLoadedNotes();
+            });
+    }
+    
+    /**
+     * 把已读取的笔记填入编辑框；笔记未读取完成前禁止编辑，避免编辑增量与加载内容错位
+     * 读取失败时只显示读到的部分内容，编辑框保持禁用
+     */
+    private void applyLoadedNotes() {
+        if (editNotes == null || notesLoaded) {
+            return;
+        }
+        if (loadedNotesText == null) {
+            editNotes.setEnabled(false);
+            return;
         }
+        suppressNotesJournal = true;
+        editNotes.setText(loadedNotesText);
+        suppressNotesJournal = false;
+        if (notesLoadFailed) {
+            loadedNotesText = null;
+            return;
+        }
+        editNotes.setEnabled(true);
+        notesLoaded = true;
+        AppLog.d("FloatingService", "已加载笔记，长度: {}", loadedNotesText.length());
+        loadedNotesText = null;
     }
     
     /**
      * 保存悬浮窗位置到SharedPreferences
      */
     private void saveFloatingPosition() {
-        if (params != null) {
+        // 窗口添加前 params 中还不是保存的位置，不能覆盖
+        if (params != null && viewAttached) {
             SharedPreferences prefs = getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
             SharedPreferences.Editor editor = prefs.edit();
             editor.putInt(POSITION_X_KEY, params.x);
             editor.putInt(POSITION_Y_KEY, params.y);
             editor.apply();
-            android.util.Log.d("FloatingService", "已保存悬浮窗位置: x=" + params.x + ", y=" + params.y);
+            AppLog.d("FloatingService", "已保存悬浮窗位置: x={}, y={}", params.x, params.y);
         }
     }
 
@@ -864,58 +1438,118 @@ public class FloatingService extends Service {
     public void onDestroy() {
         super.onDestroy();
         // 在销毁时保存文本内容和悬浮窗位置
-        saveNotes();
+        // 进程可能在 onDestroy 返回后被回收，等待最后的日志写入和压缩完成，最多阻塞 NOTES_CLOSE_TIMEOUT_MS
+        if (notesStore != null) {
+            notesStore.close();
+            try {
+                if (!notesStore.awaitIdle(NOTES_CLOSE_TIMEOUT_MS)) {
+                    AppLog.w("FloatingService", "等待笔记写入超时");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
         saveFloatingPosition();
         
         // 清理回调
-        if (handler != null && saveNotesRunnable != null) {
-            handler.removeCallbacks(saveNotesRunnable);
-        }
+        autoSaveDebouncer.cancel();
+        autoCollapseDebouncer.cancel();
+        OverlayModeStats.enterMode(-1);
         
         stopPlaybackStatusMonitoring();
-        if (floatingView != null) {
+        handler.removeCallbacks(playbackStateRefresh);
+        if (commandExecutor != null) {
+            commandExecutor.shutdown();
+        }
+        if (mediaSessionTracker != null) {
+            mediaSessionTracker.stop();
+        }
+        if (nightModeObserver != null) {
+            getContentResolver().unregisterContentObserver(nightModeObserver);
+        }
+        if (timestampedNotesDb != null) {
+            timestampedNotesDb.close();
+        }
+        PersistentShell.release();
+        if (floatingView != null && viewAttached) {
             windowManager.removeView(floatingView);
         }
+        floatingView = null;
+        running = false;
+        instance = null;
+        FloatingWidgetTileService.requestTileUpdate(this);
+        MediaControlAccessibilityService.onOverlayStateChanged();
+    }
+
+    /**
+     * 悬浮窗服务是否在运行（进程内标志，O(1)）
+     */
+    public static boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 命令执行、后台唤醒和窗口拖动的统计（主线程调用），服务未运行时返回null
+     */
+    static String getRuntimeStats() {
+        FloatingService service = instance;
+        if (service == null || service.commandExecutor == null) {
+            return null;
+        }
+        return service.commandExecutor.getStats()
+            + "\n后台唤醒: " + service.wakeupCount
+            + (service.dragUpdater != null ? "\n" + service.dragUpdater.getStats() : "");
     }
 
     /**
      * 设置配置变更监听器
+     * 主题变化完全由回调驱动：onConfigurationChanged 覆盖 Android 10+，
+     * 旧版本通过监听 ui_night_mode 设置项获知变化，空闲时不产生任何定时唤醒
      */
     private void setupConfigurationListener() {
-        // 创建配置变更检查器，定期检查主题变化
-        handler.post(new Runnable() {
-            private boolean lastDarkTheme = isSystemDarkTheme();
-            
+        lastDarkTheme = isSystemDarkTheme();
+        
+        nightModeObserver = new ContentObserver(handler) {
             @Override
-            public void run() {
-                try {
-                    boolean currentDarkTheme = isSystemDarkTheme();
-                    if (currentDarkTheme != lastDarkTheme) {
-                        android.util.Log.d("FloatingService", "检测到主题变化: " + 
-                            (lastDarkTheme ? "深色" : "浅色") + " -> " + 
-                            (currentDarkTheme ? "深色" : "浅色"));
-                        lastDarkTheme = currentDarkTheme;
-                        applySystemTheme();
-                    }
-                } catch (Exception e) {
-                    android.util.Log.e("FloatingService", "配置变更检查时出错", e);
-                }
-                
-                // 每2秒检查一次主题变化
-                handler.postDelayed(this, 2000);
+            public void onChange(boolean selfChange) {
+                wakeupCount++;
+                AppLog.d("FloatingService", "夜间模式设置变更回调触发");
+                checkThemeChanged();
             }
-        });
+        };
+        try {
+            getContentResolver().registerContentObserver(
+                android.provider.Settings.Secure.getUriFor("ui_night_mode"), false, nightModeObserver);
+        } catch (Exception e) {
+            AppLog.e("FloatingService", "注册夜间模式监听失败", e);
+            nightModeObserver = null;
+        }
+    }
+    
+    /**
+     * 检查主题是否变化，变化时重新应用样式
+     */
+    private void checkThemeChanged() {
+        try {
+            boolean currentDarkTheme = isSystemDarkTheme();
+            if (currentDarkTheme != lastDarkTheme) {
+                AppLog.d("FloatingService", "检测到主题变化: {} -> {}", lastDarkTheme ? "深色" : "浅色", currentDarkTheme ? "深色" : "浅色");
+                lastDarkTheme = currentDarkTheme;
+                applySystemTheme();
+            }
+        } catch (Exception e) {
+            AppLog.e("FloatingService", "配置变更检查时出错", e);
+        }
     }
     
     @Override
     public void onConfigurationChanged(Configuration newConfig) {
         super.onConfigurationChanged(newConfig);
-        android.util.Log.d("FloatingService", "配置变更回调触发");
+        wakeupCount++;
+        AppLog.d("FloatingService", "配置变更回调触发");
         
         // 延迟应用主题，确保系统配置已更新
-        handler.postDelayed(() -> {
-            applySystemTheme();
-        }, 100);
+        handler.postDelayed(this::checkThemeChanged, 100);
     }
     
     /**
@@ -923,30 +1557,30 @@ public class FloatingService extends Service {
      */
     private void applySystemTheme() {
         if (editNotes == null || editTextContainer == null) {
-            android.util.Log.w("FloatingService", "EditText 或容器为空，跳过主题应用");
+            AppLog.w("FloatingService", "EditText 或容器为空，跳过主题应用");
             return;
         }
         
         try {
             // 检测系统是否为深色主题
             boolean isDarkTheme = isSystemDarkTheme();
-            android.util.Log.d("FloatingService", "检测到系统主题: " + (isDarkTheme ? "深色" : "浅色"));
+            AppLog.d("FloatingService", "检测到系统主题: {}", isDarkTheme ? "深色" : "浅色");
             
             if (isDarkTheme) {
                 // 深色主题：黑底白字
                 editTextContainer.setBackgroundColor(0xFF1E1E1E); // 深灰色背景
                 editNotes.setTextColor(0xFFFFFFFF); // 白色文字
                 editNotes.setHintTextColor(0xFF888888); // 灰色提示文字
-                android.util.Log.d("FloatingService", "已应用深色主题样式");
+                AppLog.d("FloatingService", "已应用深色主题样式");
             } else {
                 // 浅色主题：白底黑字  
                 editTextContainer.setBackgroundColor(0xFFFFFFFF); // 白色背景
                 editNotes.setTextColor(0xFF000000); // 黑色文字
                 editNotes.setHintTextColor(0xFF666666); // 深灰色提示文字
-                android.util.Log.d("FloatingService", "已应用浅色主题样式");
+                AppLog.d("FloatingService", "已应用浅色主题样式");
             }
         } catch (Exception e) {
-            android.util.Log.e("FloatingService", "应用主题样式时出错", e);
+            AppLog.e("FloatingService", "应用主题样式时出错", e);
         }
     }
     
@@ -970,7 +1604,7 @@ public class FloatingService extends Service {
                     "ui_night_mode", 0) == 2;
             }
         } catch (Exception e) {
-            android.util.Log.e("FloatingService", "检测系统主题时出错", e);
+            AppLog.e("FloatingService", "检测系统主题时出错", e);
             // 出错时默认返回浅色主题
             return false;
         }
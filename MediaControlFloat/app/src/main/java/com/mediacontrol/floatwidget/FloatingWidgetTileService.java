@@ -1,16 +1,17 @@
 package com.mediacontrol.floatwidget;
 
+import android.content.ComponentName;
+import android.content.Context;
 import android.content.Intent;
 import android.graphics.drawable.Icon;
+import android.os.Build;
 import android.service.quicksettings.Tile;
 import android.service.quicksettings.TileService;
-import android.util.Log;
-import android.app.ActivityManager;
-import android.content.Context;
-import java.util.List;
 
 /**
  * Quick Settings Tile服务，用于快速开启/关闭悬浮窗
+ * 以主动模式运行（ACTIVE_TILE）：状态由 FloatingService 在启动和销毁时推送，
+ * 读取的是进程内的运行标志，不查询系统服务列表
  */
 public class FloatingWidgetTileService extends TileService {
     private static final String TAG = "FloatingWidgetTileService";
@@ -23,13 +24,13 @@ public class FloatingWidgetTileService extends TileService {
     @Override
     public void onTileAdded() {
         super.onTileAdded();
-        Log.d(TAG, "Tile was added");
+        AppLog.d(TAG, "Tile was added");
     }
 
     @Override
     public void onTileRemoved() {
         super.onTileRemoved();
-        Log.d(TAG, "Tile was removed");
+        AppLog.d(TAG, "Tile was removed");
     }
 
     @Override
@@ -47,8 +48,8 @@ public class FloatingWidgetTileService extends TileService {
     public void onClick() {
         super.onClick();
         
-        boolean isServiceRunning = isFloatingServiceRunning();
-        Log.d(TAG, "Tile clicked, service running: " + isServiceRunning);
+        boolean isServiceRunning = FloatingService.isRunning();
+        AppLog.d(TAG, "Tile clicked, service running: {}", isServiceRunning);
         
         if (isServiceRunning) {
             // 停止悬浮窗服务
@@ -58,23 +59,24 @@ public class FloatingWidgetTileService extends TileService {
             startFloatingService();
         }
         
-        // 更新tile状态
-        updateTileState();
+        // 先按预期状态显示，服务实际启动/销毁后会再推送一次
+        showTileState(!isServiceRunning);
     }
 
     /**
-     * 检查FloatingService是否正在运行
+     * 请求系统刷新 Tile（服务状态变化时调用，任意进程内组件均可调用）
      */
-    private boolean isFloatingServiceRunning() {
-        ActivityManager activityManager = (ActivityManager) getSystemService(Context.ACTIVITY_SERVICE);
-        List<ActivityManager.RunningServiceInfo> services = activityManager.getRunningServices(Integer.MAX_VALUE);
-        
-        for (ActivityManager.RunningServiceInfo service : services) {
-            if (FloatingService.class.getName().equals(service.service.getClassName())) {
-                return true;
-            }
+    public static void requestTileUpdate(Context context) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N) {
+            return;
+        }
+        try {
+            TileService.requestListeningState(context,
+                new ComponentName(context, FloatingWidgetTileService.class));
+        } catch (Exception e) {
+            // Tile 未添加到快捷设置面板时部分系统会抛出异常，忽略即可
+            AppLog.w(TAG, "requestListeningState failed", e);
         }
-        return false;
     }
 
     /**
@@ -84,9 +86,9 @@ public class FloatingWidgetTileService extends TileService {
         try {
             Intent serviceIntent = new Intent(this, FloatingService.class);
             startForegroundService(serviceIntent);
-            Log.d(TAG, "FloatingService started");
+            AppLog.d(TAG, "FloatingService started");
         } catch (Exception e) {
-            Log.e(TAG, "Failed to start FloatingService", e);
+            AppLog.e(TAG, "Failed to start FloatingService", e);
         }
     }
 
@@ -97,9 +99,9 @@ public class FloatingWidgetTileService extends TileService {
         try {
             Intent serviceIntent = new Intent(this, FloatingService.class);
             stopService(serviceIntent);
-            Log.d(TAG, "FloatingService stopped");
+            AppLog.d(TAG, "FloatingService stopped");
         } catch (Exception e) {
-            Log.e(TAG, "Failed to stop FloatingService", e);
+            AppLog.e(TAG, "Failed to stop FloatingService", e);
         }
     }
 
@@ -107,10 +109,12 @@ public class FloatingWidgetTileService extends TileService {
      * 更新Tile的状态
      */
     private void updateTileState() {
+        showTileState(FloatingService.isRunning());
+    }
+
+    private void showTileState(boolean isServiceRunning) {
         Tile tile = getQsTile();
         if (tile != null) {
-            boolean isServiceRunning = isFloatingServiceRunning();
-            
             if (isServiceRunning) {
                 tile.setIcon(Icon.createWithResource(this, R.drawable.nr));
                 tile.setLabel("悬浮窗");
@@ -124,7 +128,7 @@ public class FloatingWidgetTileService extends TileService {
             }
             
             tile.updateTile();
-            Log.d(TAG, "Tile state updated, active: " + isServiceRunning);
+            AppLog.d(TAG, "Tile state updated, active: {}", isServiceRunning);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,279 @@
+package com.mediacontrol.floatwidget;
+
+import android.accessibilityservice.AccessibilityService;
+import android.accessibilityservice.GestureDescription;
+import android.graphics.Path;
+import android.os.Handler;
+import android.os.SystemClock;
+
+import com.mediacontrol.floatwidget.core.CommandQueue;
+import com.mediacontrol.floatwidget.core.SeekGestureGeometry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 无障碍手势队列 - 同一时间只分发一个手势，上一个手势完成或取消后再分发下一个
+ * 系统分发新手势时会取消正在执行的手势，排队可避免连续操作互相打断
+ * 排队中同一位置的连击按 CommandQueue 的规则累加次数；队列容量有限，满时直接拒绝
+ * 手势需要 API 24 (N)，调用方负责检查系统版本
+ */
+public class GestureQueue {
+    private static final String TAG = "GestureQueue";
+
+    public static final int TYPE_TAP = 1;
+    public static final int TYPE_MULTI_TAP = 2;
+
+    // 超过预计时长仍未收到回调时视为取消，避免队列卡死
+    private static final long CALLBACK_TIMEOUT_MARGIN_MS = 1000;
+
+    /**
+     * 手势结束回调（主线程），completed 为 false 表示被拒绝、取消或超时
+     * waitMs 为排队时间，runMs 为分发到结束的时间
+     */
+    public interface Callback {
+        void onGestureFinished(boolean completed, long waitMs, long runMs);
+    }
+
+    /**
+     * 一个待分发的手势：在 (x, y) 单击，或连击 repeat 次跳转
+     */
+    static class Request extends CommandQueue.Entry {
+        final int x;
+        final int y;
+        final int maxTaps;
+        final List<Callback> callbacks = new ArrayList<>(2);
+        final long enqueuedAt = SystemClock.uptimeMillis();
+        long dispatchedAt;
+        boolean finished;
+
+        Request(int type, int x, int y, int taps, int maxTaps) {
+            super(type, taps);
+            this.x = x;
+            this.y = y;
+            this.maxTaps = maxTaps;
+        }
+
+        @Override
+        protected boolean canMergeWith(CommandQueue.Entry other) {
+            Request request = (Request) other;
+            return request.x == x && request.y == y && getRepeat() + request.getRepeat() <= maxTaps;
+        }
+    }
+
+    private final AccessibilityService service;
+    private final Handler handler;
+    private final int capacity;
+    private final Object lock = new Object();
+    private final CommandQueue<Request> pending = new CommandQueue<>(type ->
+        type == TYPE_MULTI_TAP ? CommandQueue.MERGE_ACCUMULATE : CommandQueue.MERGE_NONE);
+    private Request current;
+    private final Runnable timeoutTask = this::onTimeout;
+
+    // 统计信息
+    private long completedCount;
+    private long cancelledCount;
+    private long rejectedCount;
+    private long timeoutCount;
+    private int maxDepth;
+
+    public GestureQueue(AccessibilityService service, Handler handler, int capacity) {
+        this.service = service;
+        this.handler = handler;
+        this.capacity = capacity;
+    }
+
+    /**
+     * 提交单击手势，队列已满时返回false
+     */
+    public boolean submitTap(int x, int y, Callback callback) {
+        return submit(new Request(TYPE_TAP, x, y, 1, 1), callback);
+    }
+
+    /**
+     * 提交连击跳转手势，排队中同一位置的连击会合并为一次手势，队列已满时返回false
+     */
+    public boolean submitMultiTap(int x, int y, int taps, Callback callback) {
+        int maxTaps = GestureDescription.getMaxStrokeCount() - 1;
+        return submit(new Request(TYPE_MULTI_TAP, x, y, Math.min(Math.max(taps, 1), maxTaps), maxTaps), callback);
+    }
+
+    private boolean submit(Request request, Callback callback) {
+        if (callback != null) {
+            request.callbacks.add(callback);
+        }
+        synchronized (lock) {
+            Request tail = pending.peekLast();
+            boolean mergeable = tail != null && request.type == TYPE_MULTI_TAP
+                && tail.type == TYPE_MULTI_TAP && tail.canMergeWith(request);
+            if (pending.size() >= capacity && !mergeable) {
+                rejectedCount++;
+                AppLog.w(TAG, "手势队列已满，拒绝手势，类型: {}, 队列深度: {}", request.type, pending.size());
+                return false;
+            }
+            if (pending.offer(request) == CommandQueue.MERGED) {
+                tail.callbacks.addAll(request.callbacks);
+                AppLog.d(TAG, "连击手势已合并，累计次数: {}", tail.getRepeat());
+                return true;
+            }
+            maxDepth = Math.max(maxDepth, pending.size());
+            if (current != null) {
+                AppLog.d(TAG, "手势入队，等待当前手势结束，队列深度: {}", pending.size());
+                return true;
+            }
+        }
+        handler.post(this::dispatchNext);
+        return true;
+    }
+
+    // 在主线程分发队首手势，被系统拒绝时立即结束并继续下一个
+    private void dispatchNext() {
+        while (true) {
+            Request request;
+            synchronized (lock) {
+                if (current != null) {
+                    return;
+                }
+                request = pending.poll();
+                if (request == null) {
+                    return;
+                }
+                current = request;
+            }
+
+            request.dispatchedAt = SystemClock.uptimeMillis();
+            LatencyMetrics.GESTURE_QUEUE_WAIT.recordMillis(request.dispatchedAt - request.enqueuedAt);
+            final Request running = request;
+            GestureDescription gesture = build(running);
+            long dispatchStart = System.nanoTime();
+            boolean accepted = false;
+            try {
+                accepted = service.dispatchGesture(gesture, new AccessibilityService.GestureResultCallback() {
+                    @Override
+                    public void onCompleted(GestureDescription gestureDescription) {
+                        finish(running, true);
+                    }
+
+                    @Override
+                    public void onCancelled(GestureDescription gestureDescription) {
+                        finish(running, false);
+                    }
+                }, handler);
+            } catch (Exception e) {
+                AppLog.e(TAG, "分发手势失败", e);
+            }
+            LatencyMetrics.GESTURE_DISPATCH.recordNanos(System.nanoTime() - dispatchStart);
+            if (accepted) {
+                handler.postDelayed(timeoutTask, expectedDurationMs(running) + CALLBACK_TIMEOUT_MARGIN_MS);
+                return;
+            }
+            AppLog.w(TAG, "系统拒绝了手势，类型: {}", running.type);
+            finish(running, false);
+        }
+    }
+
+    private void onTimeout() {
+        Request running;
+        synchronized (lock) {
+            running = current;
+            if (running == null) {
+                return;
+            }
+            timeoutCount++;
+        }
+        AppLog.w(TAG, "等待手势回调超时，类型: {}", running.type);
+        finish(running, false);
+    }
+
+    // 主线程调用：结束当前手势，通知调用方并分发下一个
+    private void finish(Request request, boolean completed) {
+        if (request.finished) {
+            return;
+        }
+        request.finished = true;
+        long now = SystemClock.uptimeMillis();
+        long waitMs = request.dispatchedAt > 0 ? request.dispatchedAt - request.enqueuedAt : now - request.enqueuedAt;
+        long runMs = request.dispatchedAt > 0 ? now - request.dispatchedAt : 0;
+        // 合并时在锁内向 callbacks 追加，这里同样在锁内取副本再回调
+        Callback[] callbacks;
+        synchronized (lock) {
+            callbacks = request.callbacks.toArray(new Callback[request.callbacks.size()]);
+            if (current == request) {
+                current = null;
+                handler.removeCallbacks(timeoutTask);
+            }
+            if (completed) {
+                completedCount++;
+            } else {
+                cancelledCount++;
+            }
+        }
+        if (request.dispatchedAt > 0) {
+            LatencyMetrics.GESTURE_COMPLETE.recordMillis(runMs);
+        }
+        AppLog.d(TAG, "手势结束，完成: {}, 排队: {}ms, 执行: {}ms", completed, waitMs, runMs);
+        for (Callback callback : callbacks) {
+            try {
+                callback.onGestureFinished(completed, waitMs, runMs);
+            } catch (Exception e) {
+                AppLog.e(TAG, "手势回调异常", e);
+            }
+        }
+        dispatchNext();
+    }
+
+    private static GestureDescription build(Request request) {
+        Path clickPath = new Path();
+        clickPath.moveTo(request.x, request.y);
+        GestureDescription.Builder builder = new GestureDescription.Builder();
+        if (request.type == TYPE_TAP) {
+            builder.addStroke(new GestureDescription.StrokeDescription(
+                clickPath, 0, SeekGestureGeometry.TAP_DURATION_MS));
+        } else {
+            // 每次点击持续50ms，间隔200ms（双击跳转识别的最佳间隔）
+            int strokes = SeekGestureGeometry.strokeCount(request.getRepeat(), GestureDescription.getMaxStrokeCount());
+            for (int i = 0; i < strokes; i++) {
+                builder.addStroke(new GestureDescription.StrokeDescription(
+                    clickPath, SeekGestureGeometry.strokeStartTime(i), SeekGestureGeometry.TAP_DURATION_MS));
+            }
+        }
+        return builder.build();
+    }
+
+    private static long expectedDurationMs(Request request) {
+        return request.type == TYPE_TAP
+            ? SeekGestureGeometry.TAP_DURATION_MS : SeekGestureGeometry.multiTapDurationMs(request.getRepeat());
+    }
+
+    /**
+     * 取消所有排队中的手势（主线程），调用方收到未完成的回调；正在执行的手势仍等待系统回调
+     */
+    public void cancelPending() {
+        List<Request> dropped = new ArrayList<>();
+        synchronized (lock) {
+            for (Request request : pending) {
+                dropped.add(request);
+            }
+            pending.clear();
+        }
+        for (Request request : dropped) {
+            finish(request, false);
+        }
+    }
+
+    /**
+     * 获取统计信息（用于诊断）
+     */
+    public String getStats() {
+        synchronized (lock) {
+            return "手势队列: 深度 " + pending.size() + "/" + capacity
+                + ", 执行中: " + (current != null)
+                + ", 完成: " + completedCount
+                + ", 取消: " + cancelledCount
+                + ", 超时: " + timeoutCount
+                + ", 拒绝: " + rejectedCount
+                + ", 已合并: " + pending.getMergedCount()
+                + ", 最大深度: " + maxDepth;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.mediacontrol.floatwidget;
+
+import android.os.Handler;
+
+import com.mediacontrol.floatwidget.core.Debouncer;
+
+/**
+ * 基于 Handler 的延迟任务调度器，供 core 模块的防抖器使用
+ */
+public class HandlerScheduler implements Debouncer.Scheduler {
+    private final Handler handler;
+
+    public HandlerScheduler(Handler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public void schedule(Runnable task, long delayMs) {
+        handler.postDelayed(task, delayMs);
+    }
+
+    @Override
+    public void cancel(Runnable task) {
+        handler.removeCallbacks(task);
+    }
+}
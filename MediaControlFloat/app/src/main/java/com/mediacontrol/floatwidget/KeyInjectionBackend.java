@@ -0,0 +1,27 @@
+package com.mediacontrol.floatwidget;
+
+/**
+ * 按键注入后端 - 每种发送按键的方式实现一个后端，由 KeyInjectionDispatcher 统一调度
+ */
+public interface KeyInjectionBackend {
+
+    /**
+     * 后端名称（用于统计和日志）
+     */
+    String getName();
+
+    /**
+     * 是否支持发送该按键
+     */
+    boolean supports(int keyCode);
+
+    // inject 的结果
+    int RESULT_FAILED = 0;     // 未能发送
+    int RESULT_SENT = 1;       // 已发送，但后端无法知道是否生效，由调度器通过播放状态变化确认
+    int RESULT_CONFIRMED = 2;  // 后端已确认生效（如手势完成回调）
+
+    /**
+     * 发送一次完整的按键（按下+抬起），返回 RESULT_FAILED、RESULT_SENT 或 RESULT_CONFIRMED
+     */
+    int inject(int keyCode);
+}
@@ -0,0 +1,184 @@
+package com.mediacontrol.floatwidget;
+
+import android.content.Context;
+import android.content.Intent;
+import android.media.AudioManager;
+import android.os.Looper;
+import android.view.KeyEvent;
+
+import com.mediacontrol.floatwidget.core.PlayerProfile;
+import com.mediacontrol.floatwidget.core.SeekGestureGeometry;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 现有的各种按键发送方式，分别封装为 KeyInjectionBackend
+ * 只有手势后端能自己确认结果，其余后端返回 RESULT_SENT，由调度器根据播放状态变化确认
+ */
+public final class KeyInjectionBackends {
+
+    private KeyInjectionBackends() {
+    }
+
+    /**
+     * 是否为媒体按键（只有媒体按键能通过 AudioManager 和媒体按钮广播发送）
+     */
+    static boolean isMediaKey(int keyCode) {
+        switch (keyCode) {
+            case KeyEvent.KEYCODE_MEDIA_PLAY_PAUSE:
+            case KeyEvent.KEYCODE_MEDIA_PLAY:
+            case KeyEvent.KEYCODE_MEDIA_PAUSE:
+            case KeyEvent.KEYCODE_MEDIA_STOP:
+            case KeyEvent.KEYCODE_MEDIA_NEXT:
+            case KeyEvent.KEYCODE_MEDIA_PREVIOUS:
+            case KeyEvent.KEYCODE_MEDIA_REWIND:
+            case KeyEvent.KEYCODE_MEDIA_FAST_FORWARD:
+            case KeyEvent.KEYCODE_MEDIA_SKIP_BACKWARD:
+            case KeyEvent.KEYCODE_MEDIA_SKIP_FORWARD:
+            case KeyEvent.KEYCODE_HEADSETHOOK:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 使用 AudioManager.dispatchMediaKeyEvent 发送媒体按键
+     */
+    public static class AudioManagerBackend implements KeyInjectionBackend {
+        private final AudioManager audioManager;
+
+        public AudioManagerBackend(Context context) {
+            this.audioManager = (AudioManager) context.getSystemService(Context.AUDIO_SERVICE);
+        }
+
+        @Override
+        public String getName() {
+            return "AudioManager";
+        }
+
+        @Override
+        public boolean supports(int keyCode) {
+            return audioManager != null && isMediaKey(keyCode);
+        }
+
+        @Override
+        public int inject(int keyCode) {
+            audioManager.dispatchMediaKeyEvent(new KeyEvent(KeyEvent.ACTION_DOWN, keyCode));
+            audioManager.dispatchMediaKeyEvent(new KeyEvent(KeyEvent.ACTION_UP, keyCode));
+            return RESULT_SENT;
+        }
+    }
+
+    /**
+     * 发送 ACTION_MEDIA_BUTTON 广播
+     */
+    public static class MediaButtonBroadcastBackend implements KeyInjectionBackend {
+        private final Context context;
+
+        public MediaButtonBroadcastBackend(Context context) {
+            this.context = context.getApplicationContext();
+        }
+
+        @Override
+        public String getName() {
+            return "MediaButtonBroadcast";
+        }
+
+        @Override
+        public boolean supports(int keyCode) {
+            return isMediaKey(keyCode);
+        }
+
+        @Override
+        public int inject(int keyCode) {
+            Intent downIntent = new Intent(Intent.ACTION_MEDIA_BUTTON);
+            downIntent.putExtra(Intent.EXTRA_KEY_EVENT, new KeyEvent(KeyEvent.ACTION_DOWN, keyCode));
+            context.sendOrderedBroadcast(downIntent, null);
+
+            Intent upIntent = new Intent(Intent.ACTION_MEDIA_BUTTON);
+            upIntent.putExtra(Intent.EXTRA_KEY_EVENT, new KeyEvent(KeyEvent.ACTION_UP, keyCode));
+            context.sendOrderedBroadcast(upIntent, null);
+            return RESULT_SENT;
+        }
+    }
+
+    /**
+     * 通过常驻 shell 会话执行 input keyevent，不再为每个按键启动新进程
+     */
+    public static class ShellInputBackend implements KeyInjectionBackend {
+        @Override
+        public String getName() {
+            return "ShellInput";
+        }
+
+        @Override
+        public boolean supports(int keyCode) {
+            return true;
+        }
+
+        @Override
+        public int inject(int keyCode) {
+            // 退出码为0只说明命令执行了，不说明播放器处理了按键
+            return PersistentShell.getInstance().run("input keyevent " + keyCode) ? RESULT_SENT : RESULT_FAILED;
+        }
+    }
+
+    /**
+     * 通过无障碍服务的双击手势实现左方向键（回退），只用于配置为双击跳转的播放器
+     * 以手势完成回调作为结果；入队后等不到回调时报告已发送，由调度器根据播放位置确认
+     */
+    public static class AccessibilityGestureBackend implements KeyInjectionBackend {
+        // 手势本身的时长之外再等待的时间
+        private static final long CALLBACK_MARGIN_MS = 1000;
+
+        @Override
+        public String getName() {
+            return "AccessibilityGesture";
+        }
+
+        @Override
+        public boolean supports(int keyCode) {
+            if (keyCode != KeyEvent.KEYCODE_DPAD_LEFT) {
+                return false;
+            }
+            MediaControlAccessibilityService service = MediaControlAccessibilityService.getInstance();
+            PlayerProfile profile = service != null ? service.getActiveProfile() : null;
+            return profile != null && profile.seekMethod == PlayerProfile.SEEK_DOUBLE_TAP;
+        }
+
+        @Override
+        public int inject(int keyCode) {
+            MediaControlAccessibilityService service = MediaControlAccessibilityService.getInstance();
+            if (service == null) {
+                return RESULT_FAILED;
+            }
+            // 手势回调在主线程，主线程上无法等待回调，只能报告已发送
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                return service.performLeftDoubleClick() ? RESULT_SENT : RESULT_FAILED;
+            }
+            CountDownLatch done = new CountDownLatch(1);
+            AtomicBoolean completed = new AtomicBoolean();
+            boolean accepted = service.performLeftDoubleClick((gestureCompleted, waitMs, runMs) -> {
+                completed.set(gestureCompleted);
+                done.countDown();
+            });
+            if (!accepted) {
+                return RESULT_FAILED;
+            }
+            try {
+                long timeoutMs = SeekGestureGeometry.multiTapDurationMs(1) + CALLBACK_MARGIN_MS;
+                if (!done.await(timeoutMs, TimeUnit.MILLISECONDS)) {
+                    // 手势已入队，可能仍在 GestureQueue 中排队，之后照样会执行；只能报告已发送
+                    return RESULT_SENT;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return RESULT_SENT;
+            }
+            return completed.get() ? RESULT_CONFIRMED : RESULT_FAILED;
+        }
+    }
+}
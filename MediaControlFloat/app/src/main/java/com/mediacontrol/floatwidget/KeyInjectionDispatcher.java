@@ -0,0 +1,287 @@
+package com.mediacontrol.floatwidget;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.KeyEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 按键注入调度器 - 记录每个后端的成功率和延迟，按实际效果排序
+ * 按排序依次尝试，直到某个后端发送了按键；已发送的按键不会再由其他后端重发
+ * 成功以可确认的信号为准：后端自己确认（手势回调），或发送后已绑定的媒体会话推送了与按键对应的变化
+ * 确认结果只影响排序；无法确认的发送（没有已绑定的会话）不计入成功率
+ * 连续失败或未能确认的后端会在冷却期内被跳过
+ * 后端可能阻塞（shell 命令最长数秒），主线程只能使用 injectAsync，由专用线程发送
+ */
+public class KeyInjectionDispatcher {
+    private static final String TAG = "KeyInjectionDispatcher";
+
+    // 样本不足时按注册顺序尝试
+    private static final int MIN_SAMPLES = 3;
+    private static final int FAILURES_BEFORE_COOLDOWN = 3;
+    private static final long COOLDOWN_MS = 30_000;
+    // 发送后等待对应状态变化的时间
+    private static final long VERIFY_TIMEOUT_MS = 600;
+    private static final int LATENCY_WINDOW = 64;
+
+    private static KeyInjectionDispatcher instance;
+
+    /**
+     * 单个后端的统计
+     */
+    private static class BackendStats {
+        final KeyInjectionBackend backend;
+        final int order;
+        final long[] latencies = new long[LATENCY_WINDOW];
+        int latencyCount;
+        int latencyIndex;
+        long attempts;
+        long successes;
+        long unverified;
+        int consecutiveFailures;
+        long cooldownUntil;
+
+        BackendStats(KeyInjectionBackend backend, int order) {
+            this.backend = backend;
+            this.order = order;
+        }
+
+        synchronized void record(boolean success, long latencyNanos) {
+            attempts++;
+            latencies[latencyIndex] = latencyNanos;
+            latencyIndex = (latencyIndex + 1) % LATENCY_WINDOW;
+            latencyCount = Math.min(latencyCount + 1, LATENCY_WINDOW);
+            if (success) {
+                successes++;
+                consecutiveFailures = 0;
+            } else if (++consecutiveFailures >= FAILURES_BEFORE_COOLDOWN) {
+                cooldownUntil = SystemClock.uptimeMillis() + COOLDOWN_MS;
+                consecutiveFailures = 0;
+                AppLog.w(TAG, "后端连续失败，进入冷却: {}", backend.getName());
+            }
+        }
+
+        synchronized void recordUnverified(long latencyNanos) {
+            unverified++;
+            latencies[latencyIndex] = latencyNanos;
+            latencyIndex = (latencyIndex + 1) % LATENCY_WINDOW;
+            latencyCount = Math.min(latencyCount + 1, LATENCY_WINDOW);
+        }
+
+        synchronized boolean inCooldown(long now) {
+            return now < cooldownUntil;
+        }
+
+        synchronized double successRate() {
+            return attempts < MIN_SAMPLES ? 1.0 : (double) successes / attempts;
+        }
+
+        /**
+         * 最近窗口内的延迟分位数（纳秒），无样本时返回0
+         */
+        synchronized long percentile(double p) {
+            if (latencyCount == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(latencies, latencyCount);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(p * latencyCount) - 1;
+            return sorted[Math.max(0, Math.min(index, latencyCount - 1))];
+        }
+    }
+
+    /**
+     * 异步发送结果回调（主线程）
+     */
+    public interface Callback {
+        void onResult(boolean success);
+    }
+
+    private final List<BackendStats> backends = new ArrayList<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private Handler injectHandler;
+
+    public KeyInjectionDispatcher() {
+    }
+
+    /**
+     * 进程内共享的调度器，注册所有现有的发送方式
+     */
+    public static synchronized KeyInjectionDispatcher getInstance(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            instance = new KeyInjectionDispatcher();
+            instance.register(new KeyInjectionBackends.AudioManagerBackend(appContext));
+            instance.register(new KeyInjectionBackends.MediaButtonBroadcastBackend(appContext));
+            // 手势后端能自己确认结果，排在无法确认的 shell 之前
+            instance.register(new KeyInjectionBackends.AccessibilityGestureBackend());
+            instance.register(new KeyInjectionBackends.ShellInputBackend());
+        }
+        return instance;
+    }
+
+    /**
+     * 注册后端，注册顺序即没有统计数据时的尝试顺序
+     */
+    public synchronized void register(KeyInjectionBackend backend) {
+        backends.add(new BackendStats(backend, backends.size()));
+    }
+
+    /**
+     * 在按键发送线程上依次发送 times 次按键，任一次失败即停止，结果回调到主线程
+     */
+    public void injectAsync(int keyCode, int times, Callback callback) {
+        injectThread().post(() -> {
+            boolean success = true;
+            for (int i = 0; i < times && success; i++) {
+                success = inject(keyCode);
+            }
+            boolean result = success;
+            mainHandler.post(() -> callback.onResult(result));
+        });
+    }
+
+    private synchronized Handler injectThread() {
+        if (injectHandler == null) {
+            HandlerThread thread = new HandlerThread("KeyInjection");
+            thread.start();
+            injectHandler = new Handler(thread.getLooper());
+        }
+        return injectHandler;
+    }
+
+    /**
+     * 按当前排序依次尝试支持该按键的后端，直到某个后端发送成功
+     * 可能阻塞数秒，不能在主线程调用
+     */
+    public boolean inject(int keyCode) {
+        long injectStart = SystemClock.elapsedRealtimeNanos();
+        try {
+            return injectRanked(keyCode);
+        } finally {
+            LatencyMetrics.KEY_INJECT.recordNanos(SystemClock.elapsedRealtimeNanos() - injectStart);
+        }
+    }
+
+    private boolean injectRanked(int keyCode) {
+        int changeKind = expectedChange(keyCode);
+        for (BackendStats stats : rankedBackends(keyCode)) {
+            long start = SystemClock.elapsedRealtimeNanos();
+            boolean canVerify = PlaybackSignal.isAvailable();
+            long since = PlaybackSignal.count(changeKind);
+            int result;
+            try {
+                result = stats.backend.inject(keyCode);
+            } catch (Exception e) {
+                AppLog.e(TAG, "后端发送按键异常: {}", stats.backend.getName(), e);
+                result = KeyInjectionBackend.RESULT_FAILED;
+            }
+            if (result == KeyInjectionBackend.RESULT_FAILED) {
+                stats.record(false, SystemClock.elapsedRealtimeNanos() - start);
+                AppLog.d(TAG, "后端未能发送: {}", stats.backend.getName());
+                continue;
+            }
+            // 已发送的按键不再交给其他后端：播放/暂停和跳转都不是幂等的，晚到的效果会让按键生效两次
+            // 确认结果只用于排序
+            if (result == KeyInjectionBackend.RESULT_CONFIRMED) {
+                stats.record(true, SystemClock.elapsedRealtimeNanos() - start);
+            } else if (canVerify) {
+                boolean confirmed = PlaybackSignal.awaitChange(changeKind, since, VERIFY_TIMEOUT_MS);
+                stats.record(confirmed, SystemClock.elapsedRealtimeNanos() - start);
+                if (!confirmed) {
+                    AppLog.d(TAG, "按键已发送但未观察到对应的状态变化: {}, 后端: {}", keyCode, stats.backend.getName());
+                }
+            } else {
+                stats.recordUnverified(SystemClock.elapsedRealtimeNanos() - start);
+                AppLog.d(TAG, "按键已发送但无法确认效果: {}", keyCode);
+            }
+            return true;
+        }
+        AppLog.w(TAG, "所有后端均未能发送按键: {}", keyCode);
+        return false;
+    }
+
+    /**
+     * 按键生效时应出现的状态变化：切换键看播放/暂停翻转，跳转键看播放位置跳变
+     */
+    private static int expectedChange(int keyCode) {
+        switch (keyCode) {
+            case KeyEvent.KEYCODE_MEDIA_PLAY_PAUSE:
+            case KeyEvent.KEYCODE_MEDIA_PLAY:
+            case KeyEvent.KEYCODE_MEDIA_PAUSE:
+            case KeyEvent.KEYCODE_HEADSETHOOK:
+                return PlaybackSignal.CHANGE_PLAYING;
+            case KeyEvent.KEYCODE_DPAD_LEFT:
+            case KeyEvent.KEYCODE_DPAD_RIGHT:
+            case KeyEvent.KEYCODE_MEDIA_REWIND:
+            case KeyEvent.KEYCODE_MEDIA_FAST_FORWARD:
+            case KeyEvent.KEYCODE_MEDIA_SKIP_BACKWARD:
+            case KeyEvent.KEYCODE_MEDIA_SKIP_FORWARD:
+                return PlaybackSignal.CHANGE_POSITION;
+            default:
+                return PlaybackSignal.CHANGE_ANY;
+        }
+    }
+
+    /**
+     * 支持该按键且不在冷却期的后端，按成功率降序、p50延迟升序排列
+     */
+    private List<BackendStats> rankedBackends(int keyCode) {
+        long now = SystemClock.uptimeMillis();
+        List<BackendStats> candidates = new ArrayList<>();
+        synchronized (this) {
+            for (BackendStats stats : backends) {
+                if (stats.backend.supports(keyCode) && !stats.inCooldown(now)) {
+                    candidates.add(stats);
+                }
+            }
+        }
+        Collections.sort(candidates, (a, b) -> {
+            int byRate = Double.compare(b.successRate(), a.successRate());
+            if (byRate != 0) {
+                return byRate;
+            }
+            boolean aSampled = a.attempts >= MIN_SAMPLES;
+            boolean bSampled = b.attempts >= MIN_SAMPLES;
+            if (aSampled && bSampled) {
+                int byLatency = Long.compare(a.percentile(0.5), b.percentile(0.5));
+                if (byLatency != 0) {
+                    return byLatency;
+                }
+            }
+            return Integer.compare(a.order, b.order);
+        });
+        return candidates;
+    }
+
+    /**
+     * 获取各后端的统计信息（用于诊断）
+     */
+    public synchronized String getStats() {
+        StringBuilder sb = new StringBuilder();
+        long now = SystemClock.uptimeMillis();
+        for (BackendStats stats : backends) {
+            synchronized (stats) {
+                if (sb.length() > 0) {
+                    sb.append('\n');
+                }
+                sb.append(stats.backend.getName())
+                    .append(": ").append(stats.successes).append('/').append(stats.attempts)
+                    .append(", 未确认=").append(stats.unverified)
+                    .append(", p50=").append(stats.percentile(0.5) / 1_000_000).append("ms")
+                    .append(", p99=").append(stats.percentile(0.99) / 1_000_000).append("ms");
+                if (stats.inCooldown(now)) {
+                    sb.append(", 冷却中");
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
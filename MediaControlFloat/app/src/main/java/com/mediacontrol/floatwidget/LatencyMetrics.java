@@ -0,0 +1,95 @@
+package com.mediacontrol.floatwidget;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Locale;
+
+/**
+ * 进程内所有命令和阶段的延迟直方图
+ * 命令级：点击到悬浮窗恢复的总耗时；阶段级：流水线中每一步的耗时
+ * 报告末尾附带悬浮窗展开/收起模式的合成统计（OverlayModeStats）
+ */
+public final class LatencyMetrics {
+    // 命令（入队 → 完成）
+    public static final LatencyHistogram COMMAND_PLAY_PAUSE = new LatencyHistogram("命令: 播放/暂停");
+    public static final LatencyHistogram COMMAND_REWIND = new LatencyHistogram("命令: 回退");
+
+    // 阶段
+    public static final LatencyHistogram QUEUE_WAIT = new LatencyHistogram("阶段: 排队等待");
+    public static final LatencyHistogram FOCUS_RELEASE = new LatencyHistogram("阶段: 焦点释放");
+    public static final LatencyHistogram WINDOW_UPDATE = new LatencyHistogram("阶段: 窗口属性生效");
+    public static final LatencyHistogram SESSION_TOGGLE = new LatencyHistogram("阶段: 媒体会话命令");
+    public static final LatencyHistogram KEY_INJECT = new LatencyHistogram("阶段: 按键发送");
+    public static final LatencyHistogram GESTURE_QUEUE_WAIT = new LatencyHistogram("阶段: 手势排队");
+    public static final LatencyHistogram GESTURE_DISPATCH = new LatencyHistogram("阶段: 手势提交");
+    public static final LatencyHistogram GESTURE_COMPLETE = new LatencyHistogram("阶段: 手势完成");
+    public static final LatencyHistogram REWIND_GESTURE = new LatencyHistogram("阶段: 回退手势（含等待）");
+    public static final LatencyHistogram RESTORE = new LatencyHistogram("阶段: 恢复悬浮窗");
+
+    // 冷启动（onStartCommand → 悬浮窗首帧）
+    public static final LatencyHistogram FIRST_FRAME = new LatencyHistogram("启动: 首帧");
+
+    private static final LatencyHistogram[] ALL = {
+        COMMAND_PLAY_PAUSE, COMMAND_REWIND,
+        QUEUE_WAIT, FOCUS_RELEASE, WINDOW_UPDATE, SESSION_TOGGLE, KEY_INJECT,
+        GESTURE_QUEUE_WAIT, GESTURE_DISPATCH, GESTURE_COMPLETE, REWIND_GESTURE, RESTORE,
+        FIRST_FRAME
+    };
+
+    private LatencyMetrics() {
+    }
+
+    /**
+     * 生成文本报告：每项的次数、p50/p90/p99/最大值（毫秒）
+     */
+    public static String report() {
+        StringBuilder out = new StringBuilder();
+        for (LatencyHistogram histogram : ALL) {
+            out.append(histogram.getName()).append('\n');
+            long count = histogram.getCount();
+            if (count == 0) {
+                out.append("  无数据\n");
+                continue;
+            }
+            out.append(String.format(Locale.US,
+                "  次数 %d  p50 %s  p90 %s  p99 %s  最大 %s\n",
+                count,
+                formatMillis(histogram.getPercentileMicros(0.50)),
+                formatMillis(histogram.getPercentileMicros(0.90)),
+                formatMillis(histogram.getPercentileMicros(0.99)),
+                formatMillis(histogram.getMaxMicros())));
+        }
+        out.append('\n').append(OverlayModeStats.report());
+        return out.toString();
+    }
+
+    public static void resetAll() {
+        for (LatencyHistogram histogram : ALL) {
+            histogram.reset();
+        }
+        OverlayModeStats.reset();
+    }
+
+    /**
+     * 把报告写入文件，preface 为写在延迟报告之前的其他统计
+     */
+    public static void exportTo(File file, String preface) throws IOException {
+        Writer out = new OutputStreamWriter(new FileOutputStream(file), Charset.forName("UTF-8"));
+        try {
+            out.write("导出时间: " + System.currentTimeMillis() + "\n\n");
+            out.write(preface);
+            out.write('\n');
+            out.write(report());
+        } finally {
+            out.close();
+        }
+    }
+
+    private static String formatMillis(long micros) {
+        return String.format(Locale.US, "%.1fms", micros / 1000.0);
+    }
+}
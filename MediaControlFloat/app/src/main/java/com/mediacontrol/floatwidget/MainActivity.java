@@ -15,11 +15,17 @@ import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.mediacontrol.floatwidget.core.PlayerProfile;
+
+import java.io.File;
+
 public class MainActivity extends AppCompatActivity {
     private static final int REQUEST_CODE_OVERLAY_PERMISSION = 1001;
     private Button btnGrantPermission;
     private Button btnGrantAccessibility;
+    private Button btnGrantNotificationListener;
     private Button btnStartService;
+    private Button btnDiagnostics;
     private TextView tvStatus;
 
     @Override
@@ -35,14 +41,18 @@ public class MainActivity extends AppCompatActivity {
     private void initViews() {
         btnGrantPermission = findViewById(R.id.btn_grant_permission);
         btnGrantAccessibility = findViewById(R.id.btn_grant_accessibility);
+        btnGrantNotificationListener = findViewById(R.id.btn_grant_notification_listener);
         btnStartService = findViewById(R.id.btn_start_service);
+        btnDiagnostics = findViewById(R.id.btn_diagnostics);
         tvStatus = findViewById(R.id.tv_status);
     }
 
     private void setupClickListeners() {
         btnGrantPermission.setOnClickListener(v -> requestOverlayPermission());
         btnGrantAccessibility.setOnClickListener(v -> requestAccessibilityPermission());
+        btnGrantNotificationListener.setOnClickListener(v -> requestNotificationListenerPermission());
         btnStartService.setOnClickListener(v -> startFloatingService());
+        btnDiagnostics.setOnClickListener(v -> showDiagnostics());
     }
 
     private void updateUI() {
@@ -56,6 +66,7 @@ public class MainActivity extends AppCompatActivity {
         
         btnGrantPermission.setEnabled(!hasOverlayPermission);
         btnGrantAccessibility.setEnabled(!hasAccessibilityPermission);
+        btnGrantNotificationListener.setEnabled(!isNotificationListenerEnabled());
         
         if (hasOverlayPermission && hasAccessibilityPermission) {
             tvStatus.setText("✓ 权限已授予，可以启动悬浮窗（无障碍模式）");
@@ -92,6 +103,20 @@ public class MainActivity extends AppCompatActivity {
         Toast.makeText(this, "请在设置中开启\"媒体控制悬浮窗\"的无障碍服务", Toast.LENGTH_LONG).show();
     }
 
+    private void requestNotificationListenerPermission() {
+        Intent intent = new Intent("android.settings.ACTION_NOTIFICATION_LISTENER_SETTINGS");
+        startActivity(intent);
+        Toast.makeText(this, "请允许\"媒体控制悬浮窗\"读取通知，以直接控制播放器的媒体会话", Toast.LENGTH_LONG).show();
+    }
+
+    private boolean isNotificationListenerEnabled() {
+        String listenerName = new ComponentName(this, MediaNotificationListener.class).flattenToString();
+        String enabledListeners = Settings.Secure.getString(
+            getContentResolver(),
+            "enabled_notification_listeners"
+        );
+        return enabledListeners != null && enabledListeners.contains(listenerName);
+    }
 
     private boolean isAccessibilityServiceEnabled() {
         String serviceName = getPackageName() + "/" + MediaControlAccessibilityService.class.getName();
@@ -124,6 +149,72 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    /**
+     * 显示各组件的运行统计和各命令、阶段的延迟分布，可重置或连同最近的日志导出到文件
+     */
+    private void showDiagnostics() {
+        TextView report = new TextView(this);
+        report.setText(buildRuntimeReport() + "\n" + LatencyMetrics.report());
+        report.setTextIsSelectable(true);
+        int padding = (int) (16 * getResources().getDisplayMetrics().density);
+        report.setPadding(padding, padding, padding, padding);
+        ScrollView scrollView = new ScrollView(this);
+        scrollView.addView(report);
+
+        new AlertDialog.Builder(this)
+            .setTitle("性能诊断")
+            .setView(scrollView)
+            .setPositiveButton("导出", (dialog, which) -> exportDiagnostics())
+            .setNeutralButton("重置", (dialog, which) -> {
+                LatencyMetrics.resetAll();
+                Toast.makeText(this, "统计数据已重置", Toast.LENGTH_SHORT).show();
+            })
+            .setNegativeButton("关闭", null)
+            .show();
+    }
+
+    /**
+     * 无障碍服务、悬浮窗、按键注入和 shell 会话的运行统计
+     */
+    private String buildRuntimeReport() {
+        StringBuilder out = new StringBuilder();
+        MediaControlAccessibilityService service = MediaControlAccessibilityService.getInstance();
+        if (service != null) {
+            PlayerProfile activeProfile = service.getActiveProfile();
+            out.append("无障碍服务: 已启用\n前台播放器: ")
+                .append(activeProfile != null ? activeProfile.name : "无").append('\n')
+                .append(service.getForegroundCacheStats()).append('\n')
+                .append(service.getPlayerBoundsStats()).append('\n')
+                .append(service.getEventStats()).append('\n')
+                .append(service.getGestureQueueStats()).append('\n');
+        } else {
+            out.append("无障碍服务: 未启用\n");
+        }
+        String overlayStats = FloatingService.getRuntimeStats();
+        out.append(overlayStats != null ? overlayStats : "悬浮窗: 未运行").append('\n')
+            .append(KeyInjectionDispatcher.getInstance(this).getStats()).append('\n')
+            .append(PersistentShell.getStats()).append('\n');
+        return out.toString();
+    }
+
+    private void exportDiagnostics() {
+        File directory = getExternalFilesDir(null);
+        if (directory == null) {
+            directory = getFilesDir();
+        }
+        long now = System.currentTimeMillis();
+        File file = new File(directory, "latency_" + now + ".txt");
+        File logFile = new File(directory, "app_log_" + now + ".txt");
+        try {
+            LatencyMetrics.exportTo(file, buildRuntimeReport());
+            AppLog.dumpTo(logFile);
+            Toast.makeText(this, "已导出到: " + file.getAbsolutePath()
+                + "\n日志: " + logFile.getName(), Toast.LENGTH_LONG).show();
+        } catch (Exception e) {
+            Toast.makeText(this, "导出失败: " + e.getMessage(), Toast.LENGTH_LONG).show();
+        }
+    }
+
     @Override
     protected void onActivityResult(int requestCode, int resultCode, Intent data) {
         super.onActivityResult(requestCode, resultCode, data);
@@ -0,0 +1,224 @@
+package com.mediacontrol.floatwidget;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.mediacontrol.floatwidget.core.CommandQueue;
+
+/**
+ * 悬浮窗媒体命令执行器 - 在创建时传入的 Handler 线程上按顺序执行命令，同一时间只执行一条
+ * 排队中的相邻命令按 CommandQueue 的规则合并：两次播放/暂停互相抵消，连续回退累加次数
+ * 所有状态只在该线程上访问；耗时操作（按键注入等）由命令的执行者自行放到后台
+ */
+public class MediaCommandExecutor {
+    private static final String TAG = "MediaCommandExecutor";
+
+    public static final int TYPE_PLAY_PAUSE = 1;
+    public static final int TYPE_REWIND = 2;
+
+    // 回退点击的批处理窗口，窗口内的连续点击合并为一次多击手势
+    private static final long REWIND_BATCH_WINDOW_MS = 250;
+
+    /**
+     * 一条待执行的媒体命令
+     */
+    public static class Command extends CommandQueue.Entry {
+        public final boolean hadEditTextFocus;
+        public final boolean wasKeyboardVisible;
+        final long enqueuedAt;
+        // 批处理窗口结束前不开始执行（只有回退命令设置）
+        final long notBefore;
+        long startedAt;
+        private boolean cancelled;
+        private boolean completed;
+
+        Command(int type, int repeat, boolean hadEditTextFocus, boolean wasKeyboardVisible) {
+            super(type, repeat);
+            this.hadEditTextFocus = hadEditTextFocus;
+            this.wasKeyboardVisible = wasKeyboardVisible;
+            this.enqueuedAt = SystemClock.uptimeMillis();
+            this.notBefore = type == TYPE_REWIND ? enqueuedAt + REWIND_BATCH_WINDOW_MS : enqueuedAt;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+    }
+
+    /**
+     * 命令的实际执行者，在执行器线程上调用，完成后必须调用 onComplete（任意线程）
+     */
+    public interface CommandHandler {
+        void execute(Command command, Runnable onComplete);
+    }
+
+    private final CommandHandler commandHandler;
+    private final Handler handler;
+    private final CommandQueue<Command> pending = new CommandQueue<>(type ->
+        type == TYPE_PLAY_PAUSE ? CommandQueue.MERGE_TOGGLE
+            : type == TYPE_REWIND ? CommandQueue.MERGE_ACCUMULATE : CommandQueue.MERGE_NONE);
+    private final Runnable runNextTask = this::runNext;
+    private Command current;
+    private boolean shutdown;
+
+    // 统计信息
+    private long executedCount;
+    private long totalWaitMs;
+    private long totalRunMs;
+    private long maxLatencyMs;
+    private long lastLatencyMs;
+
+    public MediaCommandExecutor(Handler handler, CommandHandler commandHandler) {
+        this.handler = handler;
+        this.commandHandler = commandHandler;
+    }
+
+    /**
+     * 提交播放/暂停命令（执行器线程）
+     */
+    public void submitPlayPause(boolean hadEditTextFocus, boolean wasKeyboardVisible) {
+        submit(new Command(TYPE_PLAY_PAUSE, 1, hadEditTextFocus, wasKeyboardVisible));
+    }
+
+    /**
+     * 提交回退命令（执行器线程）
+     */
+    public void submitRewind(boolean hadEditTextFocus, boolean wasKeyboardVisible) {
+        submit(new Command(TYPE_REWIND, 1, hadEditTextFocus, wasKeyboardVisible));
+    }
+
+    private void submit(Command command) {
+        if (shutdown) {
+            return;
+        }
+        int outcome = pending.offer(command);
+        if (outcome == CommandQueue.CANCELLED_OUT) {
+            AppLog.d(TAG, "播放/暂停命令互相抵消，队列深度: {}", pending.size());
+            return;
+        } else if (outcome == CommandQueue.MERGED) {
+            AppLog.d(TAG, "回退命令已合并，累计次数: {}", pending.peekLast().getRepeat());
+            return;
+        }
+        AppLog.d(TAG, "命令入队，类型: {}, 队列深度: {}", command.type, pending.size());
+        if (current == null && pending.size() == 1) {
+            scheduleNext();
+        }
+    }
+
+    // 队首是仍在批处理窗口内的回退命令时，等窗口结束再执行；新提交的其他命令不会提前结束窗口
+    private void scheduleNext() {
+        handler.removeCallbacks(runNextTask);
+        Command head = pending.peek();
+        if (head == null) {
+            return;
+        }
+        long delay = head.notBefore - SystemClock.uptimeMillis();
+        if (delay > 0) {
+            handler.postDelayed(runNextTask, delay);
+        } else {
+            handler.post(runNextTask);
+        }
+    }
+
+    private void runNext() {
+        if (shutdown || current != null) {
+            return;
+        }
+        Command head = pending.peek();
+        if (head == null) {
+            return;
+        }
+        if (head.notBefore > SystemClock.uptimeMillis()) {
+            scheduleNext();
+            return;
+        }
+        final Command command = pending.poll();
+        current = command;
+        command.startedAt = SystemClock.uptimeMillis();
+        try {
+            commandHandler.execute(command, () -> onCommandComplete(command));
+        } catch (Exception e) {
+            AppLog.e(TAG, "命令执行异常", e);
+            onCommandComplete(command);
+        }
+    }
+
+    private void onCommandComplete(Command command) {
+        if (Looper.myLooper() != handler.getLooper()) {
+            handler.post(() -> onCommandComplete(command));
+            return;
+        }
+        if (command.completed) {
+            return;
+        }
+        command.completed = true;
+        long now = SystemClock.uptimeMillis();
+        long waitMs = command.startedAt - command.enqueuedAt;
+        long runMs = now - command.startedAt;
+        if (current == command) {
+            current = null;
+        }
+        executedCount++;
+        totalWaitMs += waitMs;
+        totalRunMs += runMs;
+        lastLatencyMs = waitMs + runMs;
+        maxLatencyMs = Math.max(maxLatencyMs, lastLatencyMs);
+        LatencyMetrics.QUEUE_WAIT.recordMillis(waitMs);
+        LatencyHistogram commandLatency = command.type == TYPE_PLAY_PAUSE
+            ? LatencyMetrics.COMMAND_PLAY_PAUSE : LatencyMetrics.COMMAND_REWIND;
+        commandLatency.recordMillis(waitMs + runMs);
+        AppLog.d(TAG, "命令完成，类型: {}, 等待: {}ms, 执行: {}ms", command.type, waitMs, runMs);
+        if (!shutdown) {
+            scheduleNext();
+        }
+    }
+
+    /**
+     * 取消所有排队中的命令，并标记正在执行的命令为已取消
+     */
+    public void cancelAll() {
+        handler.removeCallbacks(runNextTask);
+        for (Command command : pending) {
+            command.cancel();
+        }
+        pending.clear();
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    /**
+     * 当前队列深度（不含正在执行的命令）
+     */
+    public int getQueueDepth() {
+        return pending.size();
+    }
+
+    /**
+     * 获取统计信息（用于诊断）
+     */
+    public String getStats() {
+        long avgWait = executedCount > 0 ? totalWaitMs / executedCount : 0;
+        long avgRun = executedCount > 0 ? totalRunMs / executedCount : 0;
+        return "队列深度: " + pending.size()
+            + ", 已执行: " + executedCount
+            + ", 已合并: " + pending.getMergedCount()
+            + ", 平均等待: " + avgWait + "ms"
+            + ", 平均执行: " + avgRun + "ms"
+            + ", 最近: " + lastLatencyMs + "ms"
+            + ", 最大: " + maxLatencyMs + "ms";
+    }
+
+    /**
+     * 关闭执行器：取消所有命令，之后的提交和完成回调都不再调度新命令
+     */
+    public void shutdown() {
+        shutdown = true;
+        cancelAll();
+    }
+}
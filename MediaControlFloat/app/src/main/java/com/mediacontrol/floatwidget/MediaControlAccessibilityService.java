@@ -1,270 +1,352 @@
 package com.mediacontrol.floatwidget;
 
 import android.accessibilityservice.AccessibilityService;
-import android.accessibilityservice.GestureDescription;
-import android.graphics.Path;
+import android.accessibilityservice.AccessibilityServiceInfo;
 import android.graphics.Rect;
 import android.os.Build;
-import android.util.Log;
-import android.view.KeyEvent;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.view.accessibility.AccessibilityEvent;
 import android.view.accessibility.AccessibilityNodeInfo;
 import android.content.ComponentName;
 import android.content.pm.ActivityInfo;
 import android.content.pm.PackageManager;
-import java.io.DataOutputStream;
+
+import com.mediacontrol.floatwidget.core.Debouncer;
+import com.mediacontrol.floatwidget.core.FocusableNodeFinder;
+import com.mediacontrol.floatwidget.core.NodeSnapshot;
+import com.mediacontrol.floatwidget.core.NodeSnapshotCodec;
+import com.mediacontrol.floatwidget.core.PlaybackStateDetector;
+import com.mediacontrol.floatwidget.core.PlayerProfile;
+import com.mediacontrol.floatwidget.core.PlayerProfileRegistry;
+import com.mediacontrol.floatwidget.core.SeekGestureGeometry;
+
+import java.io.File;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class MediaControlAccessibilityService extends AccessibilityService {
     private static MediaControlAccessibilityService instance;
-    private static final String YOUTUBE_PACKAGE = "com.google.android.youtube";
-    private static final String YOUTUBE_MUSIC_PACKAGE = "com.google.android.apps.youtube.music";
+
+    // 手势队列容量（不含正在执行的手势），满时拒绝新手势
+    private static final int GESTURE_QUEUE_CAPACITY = 4;
+    // 前台缓存超过该时长未被事件刷新即视为过期，需要回退到实时查询
+    private static final long FOREGROUND_STALE_MS = 1500;
+    // 窗口结构变化平息后再预先定位播放器，避免连续变化时反复查询
+    private static final long PLAYER_PREWARM_DELAY_MS = 300;
+
+    // 事件订阅：悬浮窗关闭时只跟踪前台窗口，显示时再订阅内容变化（播放器定位、前台心跳）
+    private static final int MINIMAL_EVENT_TYPES =
+        AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED | AccessibilityEvent.TYPE_WINDOWS_CHANGED;
+    private static final int OVERLAY_EVENT_TYPES =
+        MINIMAL_EVENT_TYPES | AccessibilityEvent.TYPE_WINDOW_CONTENT_CHANGED;
+
+    // 事件驱动的前台应用缓存（由 onAccessibilityEvent 更新，读取无需IPC）
+    private volatile String foregroundPackage;
+    private volatile int foregroundWindowId = -1;
+    private volatile long foregroundUpdatedAt;
+    private volatile boolean foregroundDirty = true;
+    // 前台应用对应的播放器配置，每次窗口变化时解析一次，不支持的应用为null
+    private volatile PlayerProfile activeProfile;
+    private PlayerProfileRegistry playerProfiles;
+
+    // 缓存命中统计
+    private final AtomicLong foregroundCacheHits = new AtomicLong();
+    private final AtomicLong foregroundLiveLookups = new AtomicLong();
+    private final AtomicLong foregroundCacheAgreed = new AtomicLong();
+    private final AtomicLong foregroundCacheMismatched = new AtomicLong();
+
+    private final PlaybackStateDetector<AccessibilityNodeInfo> playbackStateDetector =
+        new PlaybackStateDetector<>(AccessibilityNodeAdapter.INSTANCE);
+    private final FocusableNodeFinder<AccessibilityNodeInfo> focusableNodeFinder =
+        new FocusableNodeFinder<>(AccessibilityNodeAdapter.INSTANCE);
+
+    // 播放器范围缓存，播放器进入前台或结构变化后预先定位，回退点击时无需访问节点树
+    private final PlayerBoundsLocator playerBoundsLocator = new PlayerBoundsLocator();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Debouncer playerPrewarmDebouncer =
+        new Debouncer(new HandlerScheduler(handler), PLAYER_PREWARM_DELAY_MS, this::prewarmPlayerBounds);
+    // 所有手势经由队列逐个分发，避免新手势取消正在执行的手势
+    private final GestureQueue gestureQueue = new GestureQueue(this, handler, GESTURE_QUEUE_CAPACITY);
+
+    // 按事件类型（位序号）统计收到的事件数，仅在主线程访问
+    private final long[] eventCounts = new long[32];
+    private long eventCountsSince = SystemClock.uptimeMillis();
+    private int subscribedEventTypes;
+    private int subscriptionChanges;
 
     @Override
     public void onCreate() {
         super.onCreate();
         instance = this;
-        Log.d("AccessibilityService", "MediaControlAccessibilityService onCreate - 服务已创建");
+        playerProfiles = PlayerProfiles.get(this);
+        // 按键注入的 ShellInput 后端使用共享 shell，由两个服务共同持有
+        PersistentShell.acquire();
+        AppLog.d("AccessibilityService", "MediaControlAccessibilityService onCreate - 服务已创建");
     }
     
     @Override
     protected void onServiceConnected() {
         super.onServiceConnected();
-        Log.d("AccessibilityService", "onServiceConnected - 无障碍服务已连接并运行");
+        AppLog.d("AccessibilityService", "onServiceConnected - 无障碍服务已连接并运行");
+        updateEventSubscription();
+    }
+
+    /**
+     * 悬浮窗显示或关闭时调用（主线程），按需调整事件订阅
+     */
+    public static void onOverlayStateChanged() {
+        MediaControlAccessibilityService service = instance;
+        if (service != null) {
+            service.updateEventSubscription();
+        }
+    }
+
+    /**
+     * 通过 setServiceInfo 只订阅当前功能需要的事件类型，减少系统向本进程投递的事件
+     * 不按包名过滤：前台缓存必须看到切换到其他应用的窗口事件，否则离开播放器后缓存仍指向播放器
+     */
+    private void updateEventSubscription() {
+        boolean overlayShowing = FloatingService.isRunning();
+        int eventTypes = overlayShowing ? OVERLAY_EVENT_TYPES : MINIMAL_EVENT_TYPES;
+        AccessibilityServiceInfo info = getServiceInfo();
+        if (info == null || info.eventTypes == eventTypes) {
+            subscribedEventTypes = info != null ? info.eventTypes : subscribedEventTypes;
+            return;
+        }
+        info.eventTypes = eventTypes;
+        info.packageNames = null;
+        setServiceInfo(info);
+        subscribedEventTypes = eventTypes;
+        subscriptionChanges++;
+        AppLog.d("AccessibilityService", "事件订阅已{}: {}", overlayShowing ? "扩大" : "收窄",
+            AccessibilityEvent.eventTypeToString(eventTypes));
+
+        if (overlayShowing) {
+            playerPrewarmDebouncer.trigger();
+        } else {
+            // 不再收到内容变化事件，缓存无法及时失效，直接清空
+            playerPrewarmDebouncer.cancel();
+            playerBoundsLocator.clear();
+        }
     }
 
     @Override
     public void onDestroy() {
         super.onDestroy();
-        Log.d("AccessibilityService", "MediaControlAccessibilityService onDestroy - 服务已销毁");
+        AppLog.d("AccessibilityService", "MediaControlAccessibilityService onDestroy - 服务已销毁");
+        playerPrewarmDebouncer.cancel();
+        gestureQueue.cancelPending();
+        PersistentShell.release();
         instance = null;
     }
 
     public static MediaControlAccessibilityService getInstance() {
-        Log.d("AccessibilityService", "getInstance() called, instance = " + (instance != null ? "not null" : "null"));
         return instance;
     }
 
     @Override
     public void onAccessibilityEvent(AccessibilityEvent event) {
-        // 监听无障碍事件，特别关注窗口状态变化
-        if (event.getEventType() == AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED) {
-            String packageName = event.getPackageName() != null ? 
-                event.getPackageName().toString() : "";
-            
-            // 记录当前活动的应用
-            if (YOUTUBE_PACKAGE.equals(packageName) || YOUTUBE_MUSIC_PACKAGE.equals(packageName)) {
-                Log.d("AccessibilityService", "YouTube window became active: " + packageName);
+        // 监听无障碍事件，维护前台应用缓存
+        int eventType = event.getEventType();
+        eventCounts[Integer.numberOfTrailingZeros(eventType)]++;
+        String packageName = event.getPackageName() != null ?
+            event.getPackageName().toString() : "";
+
+        if (eventType == AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED) {
+            if (!packageName.isEmpty()) {
+                updateForegroundCache(packageName, event.getWindowId());
+            }
+            playerBoundsLocator.invalidate(event.getWindowId());
+
+            // 记录当前活动的播放器，并预先定位播放器视图
+            PlayerProfile profile = activeProfile;
+            if (profile != null) {
+                AppLog.d("AccessibilityService", "播放器窗口已激活: {}", profile);
+                if (profile.playerViewIds.length > 0) {
+                    playerPrewarmDebouncer.trigger();
+                }
+            }
+        } else if (eventType == AccessibilityEvent.TYPE_WINDOW_CONTENT_CHANGED) {
+            // 内容变化只用于播放器定位和前台心跳，其他应用的直接忽略
+            if (!isPlayerPackage(packageName)) {
+                return;
+            }
+            int windowId = event.getWindowId();
+            boolean invalidated = playerBoundsLocator.onWindowContentChanged(windowId, event.getContentChangeTypes());
+            if (!foregroundDirty && packageName.equals(foregroundPackage)) {
+                foregroundUpdatedAt = SystemClock.uptimeMillis();
+                // 前台播放器窗口结构变化（或仍未定位到播放器）时重新预定位
+                PlayerProfile profile = activeProfile;
+                if (profile != null && profile.playerViewIds.length > 0
+                        && (invalidated || !playerBoundsLocator.isCached(windowId))) {
+                    playerPrewarmDebouncer.trigger();
+                }
             }
+        } else if (eventType == AccessibilityEvent.TYPE_WINDOWS_CHANGED) {
+            // 窗口列表变化时无法直接得知新的活动窗口，标记缓存待校验
+            foregroundDirty = true;
+        } else if (!foregroundDirty && packageName.equals(foregroundPackage)) {
+            // 前台应用持续产生的事件视为心跳，延长缓存有效期
+            foregroundUpdatedAt = SystemClock.uptimeMillis();
         }
     }
 
-    @Override
-    public void onInterrupt() {
-        // 服务被中断时的处理
+    /**
+     * 更新前台应用缓存
+     */
+    private void updateForegroundCache(String packageName, int windowId) {
+        if (!packageName.equals(foregroundPackage)) {
+            activeProfile = playerProfiles.get(packageName);
+        }
+        foregroundPackage = packageName;
+        foregroundWindowId = windowId;
+        foregroundUpdatedAt = SystemClock.uptimeMillis();
+        foregroundDirty = false;
     }
 
     /**
-     * 发送左方向键到YouTube应用进行10秒回退
+     * 判断包名是否为已配置的播放器
      */
-    public boolean sendLeftArrowToYouTube() {
-        try {
-            // 方法1: 直接使用shell命令发送按键（最可靠的方法）
-            boolean shellSuccess = sendKeyViaShell(KeyEvent.KEYCODE_DPAD_LEFT);
-            if (shellSuccess) {
-                return true;
-            }
-            
-            // 方法2: 尝试通过无障碍服务操作
-            AccessibilityNodeInfo rootNode = getRootInActiveWindow();
-            if (rootNode != null) {
-                String packageName = rootNode.getPackageName() != null ? 
-                    rootNode.getPackageName().toString() : "";
-                
-                // 检查当前前台应用是否是YouTube
-                if (YOUTUBE_PACKAGE.equals(packageName) || YOUTUBE_MUSIC_PACKAGE.equals(packageName)) {
-                    // 尝试模拟触摸手势来触发左方向键功能
-                    return simulateLeftSwipeGesture();
-                }
-            }
+    private boolean isPlayerPackage(String packageName) {
+        return playerProfiles.contains(packageName);
+    }
 
-            // 方法3: 备用方案
-            return performGlobalKeyAction(KeyEvent.KEYCODE_DPAD_LEFT);
-            
-        } catch (Exception e) {
-            e.printStackTrace();
-            return false;
-        }
+    /**
+     * 当前前台播放器的配置，前台不是已配置的播放器时返回null
+     */
+    public PlayerProfile getActiveProfile() {
+        return isPlayerInForeground() ? activeProfile : null;
     }
 
     /**
-     * 向当前活动窗口发送按键事件
+     * 在后台时机预先定位播放器并缓存范围（主线程，由防抖器调用）
      */
-    private boolean sendKeyEventToActiveWindow(int keyCode) {
+    private void prewarmPlayerBounds() {
+        PlayerProfile profile = getActiveProfile();
+        if (profile == null || profile.playerViewIds.length == 0) {
+            return;
+        }
+        AccessibilityNodeInfo rootNode = getRootInActiveWindow();
+        if (rootNode == null) {
+            return;
+        }
         try {
-            // 创建按键事件
-            KeyEvent downEvent = new KeyEvent(KeyEvent.ACTION_DOWN, keyCode);
-            KeyEvent upEvent = new KeyEvent(KeyEvent.ACTION_UP, keyCode);
-            
-            // 获取根节点
-            AccessibilityNodeInfo rootNode = getRootInActiveWindow();
-            if (rootNode != null) {
-                // 查找可以接收按键事件的节点
-                AccessibilityNodeInfo focusableNode = findFocusableNode(rootNode);
-                if (focusableNode != null) {
-                    // 尝试设置焦点并发送按键
-                    focusableNode.performAction(AccessibilityNodeInfo.ACTION_FOCUS);
-                    
-                    // 发送按键事件到系统
-                    return dispatchKeyEvent(downEvent) && dispatchKeyEvent(upEvent);
-                }
-                
-                // 如果没有找到焦点节点，尝试直接在根节点上操作
-                return dispatchKeyEvent(downEvent) && dispatchKeyEvent(upEvent);
-            }
-            
-            return false;
+            playerBoundsLocator.locate(rootNode, profile.playerViewIds,
+                getResources().getConfiguration().orientation, new Rect());
         } catch (Exception e) {
-            e.printStackTrace();
-            return false;
+            AppLog.e("AccessibilityService", "预定位播放器失败", e);
+        } finally {
+            rootNode.recycle();
         }
     }
 
     /**
-     * 查找可以获得焦点的节点
+     * 获取事件订阅和各类型事件的计数（用于诊断）
      */
-    private AccessibilityNodeInfo findFocusableNode(AccessibilityNodeInfo node) {
-        if (node == null) return null;
-        
-        // 检查当前节点是否可以获得焦点
-        if (node.isFocusable() || node.isClickable()) {
-            return node;
-        }
-        
-        // 递归查找子节点
-        for (int i = 0; i < node.getChildCount(); i++) {
-            AccessibilityNodeInfo child = node.getChild(i);
-            if (child != null) {
-                AccessibilityNodeInfo focusableChild = findFocusableNode(child);
-                if (focusableChild != null) {
-                    return focusableChild;
-                }
+    public String getEventStats() {
+        long elapsedMs = Math.max(1, SystemClock.uptimeMillis() - eventCountsSince);
+        StringBuilder out = new StringBuilder("事件订阅: ")
+            .append(AccessibilityEvent.eventTypeToString(subscribedEventTypes))
+            .append(", 调整次数: ").append(subscriptionChanges);
+        for (int bit = 0; bit < eventCounts.length; bit++) {
+            long count = eventCounts[bit];
+            if (count > 0) {
+                out.append("\n  ").append(AccessibilityEvent.eventTypeToString(1 << bit))
+                    .append(": ").append(count)
+                    .append(" (").append(count * 60000 / elapsedMs).append("/分钟)");
             }
         }
-        
-        return null;
+        return out.toString();
     }
 
     /**
-     * 使用shell命令发送按键事件
+     * 获取播放器范围缓存统计（用于诊断）
      */
-    private boolean sendKeyViaShell(int keyCode) {
-        try {
-            // 方法1: 直接执行input命令（某些设备可能支持）
-            Process process = Runtime.getRuntime().exec("input keyevent " + keyCode);
-            int exitCode = process.waitFor();
-            return exitCode == 0;
-            
-        } catch (Exception e) {
-            e.printStackTrace();
-            return false;
-        }
+    public String getPlayerBoundsStats() {
+        return playerBoundsLocator.getStats();
     }
-    
+
     /**
-     * 模拟左滑手势来触发后退功能
+     * 缓存的前台窗口ID，未知时返回-1
      */
-    private boolean simulateLeftSwipeGesture() {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
-            try {
-                // 获取屏幕尺寸
-                AccessibilityNodeInfo rootNode = getRootInActiveWindow();
-                if (rootNode != null) {
-                    Rect bounds = new Rect();
-                    rootNode.getBoundsInScreen(bounds);
-                    
-                    // 在屏幕中央执行双击手势（YouTube的双击后退功能）
-                    int centerX = bounds.centerX();
-                    int centerY = bounds.centerY();
-                    int leftX = centerX - 200; // 左侧位置
-                    
-                    return performDoubleClick(leftX, centerY);
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        }
-        return false;
+    public int getForegroundWindowId() {
+        return foregroundDirty ? -1 : foregroundWindowId;
     }
-    
+
+    @Override
+    public void onInterrupt() {
+        // 服务被中断时的处理
+    }
+
     /**
-     * 执行双击手势
+     * 查找可以获得焦点的节点，返回值不是 root 时由调用方回收
      */
-    private boolean performDoubleClick(int x, int y) {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
-            try {
-                // 创建双击手势
-                Path clickPath = new Path();
-                clickPath.moveTo(x, y);
-                
-                GestureDescription.StrokeDescription firstClick = 
-                    new GestureDescription.StrokeDescription(clickPath, 0, 50);
-                GestureDescription.StrokeDescription secondClick = 
-                    new GestureDescription.StrokeDescription(clickPath, 100, 50);
-                
-                GestureDescription gestureDescription = new GestureDescription.Builder()
-                    .addStroke(firstClick)
-                    .addStroke(secondClick)
-                    .build();
-                
-                return dispatchGesture(gestureDescription, null, null);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        }
-        return false;
+    private AccessibilityNodeInfo findFocusableNode(AccessibilityNodeInfo root) {
+        return focusableNodeFinder.find(root);
     }
 
     /**
-     * 执行全局动作发送按键
+     * 采集当前活动窗口的节点树，写入 directory 下的快照文件，失败时返回null
+     * 快照可在 JVM 上通过 :benchmark 模块的 replaySnapshots 任务回放
      */
-    private boolean performGlobalKeyAction(int keyCode) {
+    public File captureActiveWindowTree(File directory) {
+        AccessibilityNodeInfo rootNode = getRootInActiveWindow();
+        if (rootNode == null) {
+            return null;
+        }
         try {
-            // 使用shell命令作为备用方案
-            return sendKeyViaShell(keyCode);
+            NodeSnapshot snapshot = NodeSnapshotCapture.capture(rootNode);
+            String packageName = rootNode.getPackageName() != null ? rootNode.getPackageName().toString() : "unknown";
+            if (!directory.exists() && !directory.mkdirs()) {
+                return null;
+            }
+            File file = new File(directory, packageName + "_" + System.currentTimeMillis() + ".nts");
+            NodeSnapshotCodec.write(snapshot, file);
+            AppLog.d("AccessibilityService", "已采集节点树: {}, 节点数: {}", file.getName(), snapshot.countNodes());
+            return file;
         } catch (Exception e) {
-            e.printStackTrace();
-            return false;
+            AppLog.e("AccessibilityService", "采集节点树失败", e);
+            return null;
+        } finally {
+            rootNode.recycle();
         }
     }
 
     /**
-     * 分发按键事件到系统
+     * 检查已配置的播放器是否在前台
+     * 优先读取事件驱动的缓存，缓存过期或待校验时才实时查询根节点
      */
-    private boolean dispatchKeyEvent(KeyEvent event) {
-        try {
-            // 这里我们使用Runtime执行input命令，因为AccessibilityService
-            // 本身不能直接调用dispatchKeyEvent方法
-            String command = "input keyevent " + event.getKeyCode();
-            Process process = Runtime.getRuntime().exec(command);
-            int exitCode = process.waitFor();
-            return exitCode == 0;
-        } catch (Exception e) {
-            e.printStackTrace();
-            return false;
+    public boolean isPlayerInForeground() {
+        String cachedPackage = foregroundPackage;
+        if (cachedPackage != null && !foregroundDirty
+                && SystemClock.uptimeMillis() - foregroundUpdatedAt < FOREGROUND_STALE_MS) {
+            foregroundCacheHits.incrementAndGet();
+            return isPlayerPackage(cachedPackage);
         }
+        return isPlayerInForegroundLive(cachedPackage);
     }
 
     /**
-     * 检查YouTube应用是否在前台
+     * 通过根节点实时查询前台应用，并与缓存值比对以统计缓存准确率
      */
-    public boolean isYouTubeInForeground() {
+    private boolean isPlayerInForegroundLive(String cachedPackage) {
         try {
+            foregroundLiveLookups.incrementAndGet();
             AccessibilityNodeInfo rootNode = getRootInActiveWindow();
             if (rootNode != null) {
                 String packageName = rootNode.getPackageName() != null ? 
                     rootNode.getPackageName().toString() : "";
-                return YOUTUBE_PACKAGE.equals(packageName) || YOUTUBE_MUSIC_PACKAGE.equals(packageName);
+                if (cachedPackage != null) {
+                    if (packageName.equals(cachedPackage)) {
+                        foregroundCacheAgreed.incrementAndGet();
+                    } else {
+                        foregroundCacheMismatched.incrementAndGet();
+                    }
+                }
+                updateForegroundCache(packageName, rootNode.getWindowId());
+                return isPlayerPackage(packageName);
             }
             return false;
         } catch (Exception e) {
@@ -274,173 +356,186 @@ public class MediaControlAccessibilityService extends AccessibilityService {
     }
 
     /**
-     * 发送播放/暂停键
+     * 获取前台缓存统计信息（用于诊断）
      */
-    public boolean sendPlayPauseToYouTube() {
-        try {
-            return sendKeyEventToActiveWindow(KeyEvent.KEYCODE_MEDIA_PLAY_PAUSE);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return false;
-        }
+    public String getForegroundCacheStats() {
+        return "缓存命中: " + foregroundCacheHits.get()
+            + ", 实时查询: " + foregroundLiveLookups.get()
+            + ", 校验一致: " + foregroundCacheAgreed.get()
+            + ", 校验不一致: " + foregroundCacheMismatched.get();
     }
 
     /**
-     * 确保YouTube窗口获得焦点并准备接收按键事件
+     * 确保播放器窗口获得焦点并准备接收按键事件
      */
-    public boolean ensureYouTubeFocus() {
+    public boolean ensurePlayerFocus() {
         try {
             AccessibilityNodeInfo rootNode = getRootInActiveWindow();
             if (rootNode != null) {
                 String packageName = rootNode.getPackageName() != null ? 
                     rootNode.getPackageName().toString() : "";
                 
-                if (YOUTUBE_PACKAGE.equals(packageName) || YOUTUBE_MUSIC_PACKAGE.equals(packageName)) {
-                    // YouTube已经在前台，确保有可接收焦点的节点
+                if (isPlayerPackage(packageName)) {
+                    // 播放器已经在前台，确保有可接收焦点的节点
                     AccessibilityNodeInfo focusableNode = findFocusableNode(rootNode);
                     if (focusableNode != null) {
                         boolean focusSet = focusableNode.performAction(AccessibilityNodeInfo.ACTION_FOCUS);
-                        Log.d("AccessibilityService", "Set focus on YouTube node: " + focusSet);
+                        if (focusableNode != rootNode) {
+                            focusableNode.recycle();
+                        }
+                        AppLog.d("AccessibilityService", "Set focus on player node: {}", focusSet);
                         return focusSet;
                     } else {
                         // 如果没有找到特定的焦点节点，尝试在根节点上设置焦点
                         boolean focusSet = rootNode.performAction(AccessibilityNodeInfo.ACTION_FOCUS);
-                        Log.d("AccessibilityService", "Set focus on YouTube root: " + focusSet);
+                        AppLog.d("AccessibilityService", "Set focus on player root: {}", focusSet);
                         return focusSet;
                     }
                 }
             }
             
-            Log.d("AccessibilityService", "YouTube is not the active window");
+            AppLog.d("AccessibilityService", "Player is not the active window");
             return false;
             
         } catch (Exception e) {
-            Log.e("AccessibilityService", "Error ensuring YouTube focus", e);
+            AppLog.e("AccessibilityService", "Error ensuring player focus", e);
             return false;
         }
     }
 
     /**
-     * 向YouTube发送按键前先确保焦点正确
+     * 执行左上侧双击手势（5秒回退）- 安全版本
      */
-    public boolean sendKeyWithFocusEnsurance(int keyCode) {
-        // 步骤1: 确保YouTube有焦点
-        ensureYouTubeFocus();
-        
-        // 步骤2: 短暂延迟让焦点设置生效
-        try {
-            Thread.sleep(50);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-        
-        // 步骤3: 发送按键
-        if (keyCode == KeyEvent.KEYCODE_DPAD_LEFT) {
-            return sendLeftArrowToYouTube();
-        } else if (keyCode == KeyEvent.KEYCODE_MEDIA_PLAY_PAUSE) {
-            return sendPlayPauseToYouTube();
-        }
-        
-        return false;
+    public boolean performLeftDoubleClick() {
+        return performLeftDoubleClick(null);
     }
 
     /**
-     * 执行左上侧双击手势（5秒回退）- 安全版本
+     * 执行左上侧双击手势（5秒回退），手势结束时通过 callback 通知
      */
-    public boolean performLeftDoubleClick() {
+    public boolean performLeftDoubleClick(GestureQueue.Callback callback) {
+        return performLeftMultiTap(1, callback);
+    }
+
+    /**
+     * 在左侧连续点击实现多次回退，taps 为回退次数
+     */
+    public boolean performLeftMultiTap(int taps) {
+        return performLeftMultiTap(taps, null);
+    }
+
+    /**
+     * 在左侧连续点击实现多次回退，所有点击合并为一次手势分发
+     */
+    public boolean performLeftMultiTap(int taps, GestureQueue.Callback callback) {
+        return performSeekMultiTap(taps, false, callback);
+    }
+
+    /**
+     * 在右侧连续点击实现多次快进，taps 为快进次数
+     */
+    public boolean performRightMultiTap(int taps) {
+        return performRightMultiTap(taps, null);
+    }
+
+    /**
+     * 在右侧连续点击实现多次快进，所有点击合并为一次手势分发
+     */
+    public boolean performRightMultiTap(int taps, GestureQueue.Callback callback) {
+        return performSeekMultiTap(taps, true, callback);
+    }
+
+    /**
+     * 在播放器左侧（回退）或右侧（快进）执行连续点击手势 - 安全版本
+     */
+    private boolean performSeekMultiTap(int taps, boolean forward, GestureQueue.Callback callback) {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
             try {
-                // 首先检查YouTube是否在前台
-                if (!isYouTubeInForeground()) {
-                    Log.w("AccessibilityService", "YouTube不在前台，跳过双击回退操作");
+                // 首先检查前台播放器是否支持连击跳转
+                PlayerProfile profile = getActiveProfile();
+                if (profile == null || profile.seekMethod != PlayerProfile.SEEK_DOUBLE_TAP) {
+                    AppLog.w("AccessibilityService", "前台播放器不支持连击跳转: {}", profile);
                     return false;
                 }
                 
+                // 优先使用缓存的播放器范围，命中时不访问节点树
+                int orientation = getResources().getConfiguration().orientation;
+                Rect playerBounds = new Rect();
+                if (playerBoundsLocator.getCached(getForegroundWindowId(), orientation, playerBounds)) {
+                    return performPlayerSeekTap(playerBounds, taps, forward, callback);
+                }
+                
                 AccessibilityNodeInfo rootNode = getRootInActiveWindow();
                 if (rootNode != null) {
-                    String packageName = rootNode.getPackageName() != null ? 
-                        rootNode.getPackageName().toString() : "";
-                    
-                    // 再次确认是YouTube应用
-                    if (!YOUTUBE_PACKAGE.equals(packageName) && !YOUTUBE_MUSIC_PACKAGE.equals(packageName)) {
-                        Log.w("AccessibilityService", "当前应用不是YouTube: " + packageName);
-                        return false;
-                    }
-                    
-                    Rect bounds = new Rect();
-                    rootNode.getBoundsInScreen(bounds);
-                    
-                    // 基于用户反馈的有效坐标 (96, 445) 进行调整
-                    int targetX = 96;
-                    int targetY = 445;
-                    
-                    // 按比例调整适配不同屏幕
-                    if (bounds.width() > 0 && bounds.height() > 0) {
-                        float xRatio = 96f / 1080f; // 约8.9%
-                        float yRatio = 445f / 2340f; // 约19%
+                    try {
+                        String packageName = rootNode.getPackageName() != null ? 
+                            rootNode.getPackageName().toString() : "";
                         
-                        targetX = (int)(bounds.width() * xRatio);
-                        targetY = bounds.top + (int)(bounds.height() * yRatio);
+                        // 再次确认前台仍是该播放器
+                        if (!profile.packageName.equals(packageName)) {
+                            AppLog.w("AccessibilityService", "当前应用不是{}: {}", profile.name, packageName);
+                            return false;
+                        }
                         
-                        // 安全边界检查，避免点击系统区域
-                        targetX = Math.max(80, Math.min(targetX, bounds.width() / 3));
-                        targetY = Math.max(bounds.top + 200, Math.min(targetY, bounds.height() / 2));
+                        if (playerBoundsLocator.locate(rootNode, profile.playerViewIds, orientation, playerBounds)) {
+                            return performPlayerSeekTap(playerBounds, taps, forward, callback);
+                        }
+                        
+                        // 找不到播放器节点时按窗口比例估算，快进时镜像到右侧
+                        Rect bounds = new Rect();
+                        rootNode.getBoundsInScreen(bounds);
+                        SeekGestureGeometry.TapTarget target = SeekGestureGeometry.computeSeekTarget(
+                            bounds.left, bounds.top, bounds.right, bounds.bottom, forward);
+                        
+                        AppLog.d("AccessibilityService", "按窗口比例估算连击位置: {}, 次数: {}, 窗口范围: {}", target, taps, bounds);
+                        return performMultiTapAt(target.x, target.y, taps, callback);
+                    } finally {
+                        rootNode.recycle();
                     }
-                    
-                    Log.d("AccessibilityService", "安全双击位置: (" + targetX + ", " + targetY + ")");
-                    Log.d("AccessibilityService", "屏幕范围: " + bounds.toString());
-                    Log.d("AccessibilityService", "目标应用: " + packageName);
-                    
-                    return performDoubleClickAt(targetX, targetY);
                 }
             } catch (Exception e) {
-                Log.e("AccessibilityService", "双击手势执行失败", e);
+                AppLog.e("AccessibilityService", "双击手势执行失败", e);
             }
         }
         return false;
     }
     
+    private boolean performPlayerSeekTap(Rect playerBounds, int taps, boolean forward, GestureQueue.Callback callback) {
+        SeekGestureGeometry.TapTarget target = SeekGestureGeometry.computePlayerSeekTarget(
+            playerBounds.left, playerBounds.top, playerBounds.right, playerBounds.bottom, forward);
+        AppLog.d("AccessibilityService", "播放器连击位置: {}, 次数: {}, 播放器范围: {}", target, taps, playerBounds);
+        return performMultiTapAt(target.x, target.y, taps, callback);
+    }
+    
     /**
-     * 在指定位置执行双击手势（针对YouTube优化）
+     * 在指定位置执行连续点击手势（针对YouTube优化）
+     * YouTube 的前两次点击构成一次双击跳转，之后每多一次点击再累加一次跳转，
+     * 因此 taps 次跳转需要 taps + 1 个笔画；手势经由队列分发，结束时通过 callback 通知
      */
-    private boolean performDoubleClickAt(int x, int y) {
+    private boolean performMultiTapAt(int x, int y, int taps, GestureQueue.Callback callback) {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
-            try {
-                // 创建双击路径
-                Path clickPath = new Path();
-                clickPath.moveTo(x, y);
-                
-                // 第一次点击（持续时间50ms）
-                GestureDescription.StrokeDescription firstClick = 
-                    new GestureDescription.StrokeDescription(clickPath, 0, 50);
-                
-                // 第二次点击（间隔200ms，YouTube双击识别的最佳间隔）
-                GestureDescription.StrokeDescription secondClick = 
-                    new GestureDescription.StrokeDescription(clickPath, 200, 50);
-                
-                GestureDescription gestureDescription = new GestureDescription.Builder()
-                    .addStroke(firstClick)
-                    .addStroke(secondClick)
-                    .build();
-                
-                Log.d("AccessibilityService", "发送双击手势，间隔200ms");
-                return dispatchGesture(gestureDescription, null, null);
-            } catch (Exception e) {
-                Log.e("AccessibilityService", "执行双击手势时发生错误", e);
-            }
+            AppLog.d("AccessibilityService", "提交连击手势，位置: ({}, {}), 次数: {}", x, y, taps);
+            return gestureQueue.submitMultiTap(x, y, taps, callback);
         }
         return false;
     }
-    
+
+    /**
+     * 手势队列的统计信息（用于诊断）
+     */
+    public String getGestureQueueStats() {
+        return gestureQueue.getStats();
+    }
+
     /**
      * 执行播放/暂停点击手势 - 安全版本
      */
     public boolean performPlayPauseClick() {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
             try {
-                // 首先检查YouTube是否在前台
-                if (!isYouTubeInForeground()) {
-                    Log.w("AccessibilityService", "YouTube不在前台，跳过播放/暂停操作");
+                // 首先检查播放器是否在前台
+                if (!isPlayerInForeground()) {
+                    AppLog.w("AccessibilityService", "播放器不在前台，跳过播放/暂停操作");
                     return false;
                 }
                 
@@ -449,158 +544,79 @@ public class MediaControlAccessibilityService extends AccessibilityService {
                     String packageName = rootNode.getPackageName() != null ? 
                         rootNode.getPackageName().toString() : "";
                     
-                    // 再次确认是YouTube应用
-                    if (!YOUTUBE_PACKAGE.equals(packageName) && !YOUTUBE_MUSIC_PACKAGE.equals(packageName)) {
-                        Log.w("AccessibilityService", "当前应用不是YouTube: " + packageName);
+                    // 再次确认是已配置的播放器
+                    if (!isPlayerPackage(packageName)) {
+                        AppLog.w("AccessibilityService", "当前应用不是已配置的播放器: {}", packageName);
                         return false;
                     }
                     
                     Rect bounds = new Rect();
                     rootNode.getBoundsInScreen(bounds);
                     
-                    // YouTube播放/暂停区域在视频中央，更保守的位置
+                    // 播放/暂停区域在视频中央，更保守的位置
                     int centerX = bounds.centerX();
                     int centerY = bounds.centerY(); // 改为正中央，更安全
                     
-                    Log.d("AccessibilityService", "播放/暂停安全点击位置: (" + centerX + ", " + centerY + ")");
-                    Log.d("AccessibilityService", "目标应用: " + packageName);
+                    AppLog.d("AccessibilityService", "播放/暂停安全点击位置: ({}, {})", centerX, centerY);
+                    AppLog.d("AccessibilityService", "目标应用: {}", packageName);
                     
                     return performSingleClickAt(centerX, centerY);
                 }
             } catch (Exception e) {
-                Log.e("AccessibilityService", "播放/暂停手势执行失败", e);
+                AppLog.e("AccessibilityService", "播放/暂停手势执行失败", e);
             }
         }
         return false;
     }
     
     /**
-     * 在指定位置执行单击手势 - 安全版本
+     * 在指定位置执行单击手势，经由队列分发，不会打断正在执行的手势
      */
     private boolean performSingleClickAt(int x, int y) {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
-            try {
-                // 添加延迟，避免过快的手势操作
-                try {
-                    Thread.sleep(100);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    return false;
+            AppLog.d("AccessibilityService", "提交单击手势");
+            return gestureQueue.submitTap(x, y, (completed, waitMs, runMs) -> {
+                if (completed) {
+                    AppLog.d("AccessibilityService", "单击手势执行完成，排队: {}ms, 执行: {}ms", waitMs, runMs);
+                } else {
+                    AppLog.w("AccessibilityService", "单击手势未完成，排队: {}ms, 执行: {}ms", waitMs, runMs);
                 }
-                
-                Path clickPath = new Path();
-                clickPath.moveTo(x, y);
-                
-                // 缩短点击时间，减少对系统的影响
-                GestureDescription.StrokeDescription clickStroke = 
-                    new GestureDescription.StrokeDescription(clickPath, 0, 50);
-                
-                GestureDescription gestureDescription = new GestureDescription.Builder()
-                    .addStroke(clickStroke)
-                    .build();
-                
-                Log.d("AccessibilityService", "发送安全单击手势");
-                
-                // 使用回调来监控手势执行结果
-                final boolean[] result = {false};
-                GestureResultCallback callback = new GestureResultCallback() {
-                    @Override
-                    public void onCompleted(GestureDescription gestureDescription) {
-                        Log.d("AccessibilityService", "单击手势执行完成");
-                        result[0] = true;
-                    }
-                    
-                    @Override
-                    public void onCancelled(GestureDescription gestureDescription) {
-                        Log.w("AccessibilityService", "单击手势被取消");
-                    }
-                };
-                
-                return dispatchGesture(gestureDescription, callback, null);
-            } catch (Exception e) {
-                Log.e("AccessibilityService", "执行单击手势时发生错误", e);
-            }
+            });
         }
         return false;
     }
     
     /**
-     * 检测YouTube是否正在播放
+     * 通过界面上的播放/暂停按钮描述检测前台播放器是否正在播放
      */
-    public boolean isYouTubePlaying() {
+    public boolean isPlayerPlaying() {
         try {
             AccessibilityNodeInfo rootNode = getRootInActiveWindow();
             if (rootNode != null) {
-                String packageName = rootNode.getPackageName() != null ? 
-                    rootNode.getPackageName().toString() : "";
-                
-                // 确认当前是YouTube应用
-                if (YOUTUBE_PACKAGE.equals(packageName) || YOUTUBE_MUSIC_PACKAGE.equals(packageName)) {
-                    // 查找播放/暂停按钮来判断状态
-                    // 注意：如果界面显示"播放"按钮，说明当前是暂停状态
-                    // 如果界面显示"暂停"按钮，说明当前正在播放
-                    AccessibilityNodeInfo playButton = findNodeByContentDescription(rootNode, "播放");
-                    AccessibilityNodeInfo pauseButton = findNodeByContentDescription(rootNode, "暂停");
-                    
-                    // 如果找到"暂停"按钮，说明正在播放中
-                    if (pauseButton != null) {
-                        Log.d("AccessibilityService", "找到暂停按钮，正在播放");
-                        return true;
-                    }
-                    // 如果找到"播放"按钮，说明当前已暂停
-                    if (playButton != null) {
-                        Log.d("AccessibilityService", "找到播放按钮，已暂停");
-                        return false;
-                    }
-                    
-                    // 备用方案：查找英文描述
-                    AccessibilityNodeInfo playButtonEn = findNodeByContentDescription(rootNode, "Play");
-                    AccessibilityNodeInfo pauseButtonEn = findNodeByContentDescription(rootNode, "Pause");
+                try {
+                    String packageName = rootNode.getPackageName() != null ? 
+                        rootNode.getPackageName().toString() : "";
                     
-                    if (pauseButtonEn != null) {
-                        Log.d("AccessibilityService", "找到Pause按钮，正在播放");
-                        return true;
-                    }
-                    if (playButtonEn != null) {
-                        Log.d("AccessibilityService", "找到Play按钮，已暂停");
-                        return false;
+                    // 确认当前播放器的配置允许从界面读取状态
+                    PlayerProfile profile = playerProfiles.get(packageName);
+                    if (profile != null && profile.stateMethod == PlayerProfile.STATE_ACCESSIBILITY) {
+                        // 单次遍历同时匹配所有语言的播放/暂停按钮
+                        // 界面显示"暂停"按钮说明正在播放，显示"播放"按钮说明已暂停
+                        PlaybackStateDetector.Result result = playbackStateDetector.detect(rootNode);
+                        AppLog.d("AccessibilityService", "播放状态检测: {}", result);
+                        
+                        // 未找到按钮时默认假设已暂停（更保守的方案）
+                        return result.isPlaying();
                     }
-                    
-                    // 默认假设已暂停（更保守的方案）
-                    Log.d("AccessibilityService", "未找到播放/暂停按钮，默认为暂停状态");
-                    return false;
+                } finally {
+                    rootNode.recycle();
                 }
             }
         } catch (Exception e) {
-            Log.e("AccessibilityService", "检测播放状态时出错", e);
+            AppLog.e("AccessibilityService", "检测播放状态时出错", e);
         }
         
         // 默认返回false（暂停状态）
         return false;
     }
-    
-    /**
-     * 根据内容描述查找节点
-     */
-    private AccessibilityNodeInfo findNodeByContentDescription(AccessibilityNodeInfo node, String description) {
-        if (node == null || description == null) return null;
-        
-        CharSequence contentDesc = node.getContentDescription();
-        if (contentDesc != null && contentDesc.toString().contains(description)) {
-            return node;
-        }
-        
-        // 递归查找子节点
-        for (int i = 0; i < node.getChildCount(); i++) {
-            AccessibilityNodeInfo child = node.getChild(i);
-            if (child != null) {
-                AccessibilityNodeInfo found = findNodeByContentDescription(child, description);
-                if (found != null) {
-                    return found;
-                }
-            }
-        }
-        
-        return null;
-    }
-}
\ No newline at end of file
+}
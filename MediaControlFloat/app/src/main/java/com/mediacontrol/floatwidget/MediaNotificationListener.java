@@ -0,0 +1,16 @@
+package com.mediacontrol.floatwidget;
+
+import android.service.notification.NotificationListenerService;
+
+/**
+ * 通知监听服务 - 仅用于获得读取活动媒体会话的权限，不处理通知内容
+ */
+public class MediaNotificationListener extends NotificationListenerService {
+    private static final String TAG = "MediaNotificationListener";
+
+    @Override
+    public void onListenerConnected() {
+        super.onListenerConnected();
+        AppLog.d(TAG, "通知监听已连接");
+    }
+}
@@ -0,0 +1,271 @@
+package com.mediacontrol.floatwidget;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.media.MediaMetadata;
+import android.media.session.MediaController;
+import android.media.session.MediaSessionManager;
+import android.media.session.PlaybackState;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.mediacontrol.floatwidget.core.PlayerProfileRegistry;
+
+import java.util.List;
+
+/**
+ * 媒体会话跟踪器 - 通过 MediaSessionManager 获取已配置播放器的媒体会话（优先正在播放的会话）
+ * 播放状态由 MediaController.Callback 推送，命令直接发送到该会话的 TransportControls
+ * 需要用户授予通知使用权（MediaNotificationListener）
+ */
+public class MediaSessionTracker {
+    private static final String TAG = "MediaSessionTracker";
+
+    /**
+     * 播放状态变化监听器（主线程回调）
+     */
+    public interface PlaybackListener {
+        void onPlaybackStateChanged(boolean playing);
+    }
+
+    private final Context context;
+    private final PlaybackListener listener;
+    private final PlayerProfileRegistry profiles;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private MediaSessionManager sessionManager;
+    private MediaController controller;
+    private boolean started;
+
+    private final MediaSessionManager.OnActiveSessionsChangedListener sessionsChangedListener =
+        this::bindController;
+
+    private final MediaController.Callback controllerCallback = new MediaController.Callback() {
+        @Override
+        public void onPlaybackStateChanged(PlaybackState state) {
+            publishSignal(state);
+            dispatchState(state);
+        }
+
+        @Override
+        public void onSessionDestroyed() {
+            AppLog.d(TAG, "媒体会话已销毁");
+            unbindController();
+        }
+    };
+
+    public MediaSessionTracker(Context context, PlaybackListener listener) {
+        this.context = context.getApplicationContext();
+        this.listener = listener;
+        this.profiles = PlayerProfiles.get(context);
+    }
+
+    /**
+     * 开始监听活动媒体会话，未授予通知使用权时返回false
+     */
+    public boolean start() {
+        if (started) {
+            return true;
+        }
+        try {
+            sessionManager = (MediaSessionManager) context.getSystemService(Context.MEDIA_SESSION_SERVICE);
+            if (sessionManager == null) {
+                return false;
+            }
+            ComponentName listenerComponent = new ComponentName(context, MediaNotificationListener.class);
+            sessionManager.addOnActiveSessionsChangedListener(sessionsChangedListener, listenerComponent, handler);
+            bindController(sessionManager.getActiveSessions(listenerComponent));
+            started = true;
+            AppLog.d(TAG, "媒体会话跟踪已启动");
+            return true;
+        } catch (SecurityException e) {
+            AppLog.w(TAG, "未授予通知使用权，无法获取媒体会话");
+            return false;
+        } catch (Exception e) {
+            AppLog.e(TAG, "启动媒体会话跟踪失败", e);
+            return false;
+        }
+    }
+
+    /**
+     * 停止监听并释放会话
+     */
+    public void stop() {
+        if (!started) {
+            return;
+        }
+        started = false;
+        try {
+            sessionManager.removeOnActiveSessionsChangedListener(sessionsChangedListener);
+        } catch (Exception e) {
+            AppLog.e(TAG, "移除会话监听失败", e);
+        }
+        unbindController();
+    }
+
+    /**
+     * 是否已绑定到播放器的媒体会话
+     */
+    public boolean hasController() {
+        return controller != null;
+    }
+
+    /**
+     * 已绑定会话所属的包名，未绑定时返回null
+     */
+    public String getPackageName() {
+        MediaController current = controller;
+        return current != null ? current.getPackageName() : null;
+    }
+
+    /**
+     * 当前会话是否正在播放，未绑定会话时返回null
+     */
+    public Boolean isPlaying() {
+        if (controller == null) {
+            return null;
+        }
+        return isPlayingState(controller.getPlaybackState());
+    }
+
+    /**
+     * 当前视频的标识（优先媒体ID，其次标题），未绑定会话时返回null
+     */
+    public String getCurrentVideoId() {
+        if (controller == null || controller.getMetadata() == null) {
+            return null;
+        }
+        MediaMetadata metadata = controller.getMetadata();
+        String mediaId = metadata.getString(MediaMetadata.METADATA_KEY_MEDIA_ID);
+        if (mediaId != null && !mediaId.isEmpty()) {
+            return mediaId;
+        }
+        return metadata.getString(MediaMetadata.METADATA_KEY_TITLE);
+    }
+
+    /**
+     * 估算当前播放位置（毫秒），未知时返回-1
+     */
+    public long getCurrentPositionMs() {
+        return estimatePosition(controller != null ? controller.getPlaybackState() : null);
+    }
+
+    private static long estimatePosition(PlaybackState state) {
+        if (state == null || state.getPosition() == PlaybackState.PLAYBACK_POSITION_UNKNOWN) {
+            return -1;
+        }
+        long position = state.getPosition();
+        if (state.getState() == PlaybackState.STATE_PLAYING) {
+            long elapsed = SystemClock.elapsedRealtime() - state.getLastPositionUpdateTime();
+            position += (long) (elapsed * state.getPlaybackSpeed());
+        }
+        return Math.max(0, position);
+    }
+
+    /**
+     * 通过会话的 TransportControls 切换播放/暂停
+     */
+    public boolean togglePlayPause() {
+        MediaController current = controller;
+        if (current == null) {
+            return false;
+        }
+        try {
+            if (isPlayingState(current.getPlaybackState())) {
+                current.getTransportControls().pause();
+            } else {
+                current.getTransportControls().play();
+            }
+            return true;
+        } catch (Exception e) {
+            AppLog.e(TAG, "发送会话命令失败", e);
+            return false;
+        }
+    }
+
+    /**
+     * 通过会话相对当前位置跳转（负数为回退），位置未知时返回false
+     */
+    public boolean seekBy(long deltaMs) {
+        MediaController current = controller;
+        long position = getCurrentPositionMs();
+        if (current == null || position < 0) {
+            return false;
+        }
+        try {
+            current.getTransportControls().seekTo(Math.max(0, position + deltaMs));
+            return true;
+        } catch (Exception e) {
+            AppLog.e(TAG, "发送会话跳转命令失败", e);
+            return false;
+        }
+    }
+
+    private void bindController(List<MediaController> controllers) {
+        MediaController target = null;
+        if (controllers != null) {
+            for (MediaController candidate : controllers) {
+                if (!profiles.contains(candidate.getPackageName())) {
+                    continue;
+                }
+                if (target == null) {
+                    target = candidate;
+                }
+                if (isPlayingState(candidate.getPlaybackState())) {
+                    target = candidate;
+                    break;
+                }
+            }
+        }
+
+        if (target != null && controller != null
+                && controller.getSessionToken().equals(target.getSessionToken())) {
+            return;
+        }
+
+        unbindController();
+        if (target != null) {
+            controller = target;
+            controller.registerCallback(controllerCallback, handler);
+            PlaybackSignal.setAvailable(true);
+            AppLog.d(TAG, "已绑定媒体会话: {}", target.getPackageName());
+            PlaybackState state = controller.getPlaybackState();
+            publishSignal(state);
+            dispatchState(state);
+        }
+    }
+
+    private void unbindController() {
+        if (controller != null) {
+            controller.unregisterCallback(controllerCallback);
+            controller = null;
+            PlaybackSignal.setAvailable(false);
+        }
+    }
+
+    /**
+     * 把推送的状态交给 PlaybackSignal，作为之后按键效果的比较基准
+     */
+    private static void publishSignal(PlaybackState state) {
+        if (state != null) {
+            PlaybackSignal.onPlaybackStateChanged(isPlayingState(state), estimatePosition(state));
+        }
+    }
+
+    private void dispatchState(PlaybackState state) {
+        if (state != null && listener != null) {
+            listener.onPlaybackStateChanged(isPlayingState(state));
+        }
+    }
+
+    private static boolean isPlayingState(PlaybackState state) {
+        if (state == null) {
+            return false;
+        }
+        int s = state.getState();
+        return s == PlaybackState.STATE_PLAYING
+            || s == PlaybackState.STATE_BUFFERING
+            || s == PlaybackState.STATE_FAST_FORWARDING
+            || s == PlaybackState.STATE_REWINDING;
+    }
+}
@@ -0,0 +1,65 @@
+package com.mediacontrol.floatwidget;
+
+import android.graphics.Rect;
+import android.view.accessibility.AccessibilityNodeInfo;
+
+import com.mediacontrol.floatwidget.core.NodeSnapshot;
+
+/**
+ * 把实时的无障碍节点树转换为 NodeSnapshot，采集过程中获取的子节点都会被回收
+ */
+public final class NodeSnapshotCapture {
+    private static final int MAX_DEPTH = 100;
+    private static final int MAX_NODES = 20000;
+
+    private NodeSnapshotCapture() {
+    }
+
+    /**
+     * 采集以 root 为根的子树，root 由调用方负责回收
+     */
+    public static NodeSnapshot capture(AccessibilityNodeInfo root) {
+        int[] budget = {MAX_NODES};
+        return copy(root, 0, new Rect(), budget);
+    }
+
+    private static NodeSnapshot copy(AccessibilityNodeInfo node, int depth, Rect bounds, int[] budget) {
+        budget[0]--;
+        NodeSnapshot snapshot = new NodeSnapshot();
+        snapshot.className = toStringOrNull(node.getClassName());
+        snapshot.viewId = node.getViewIdResourceName();
+        snapshot.contentDescription = toStringOrNull(node.getContentDescription());
+        node.getBoundsInScreen(bounds);
+        snapshot.left = bounds.left;
+        snapshot.top = bounds.top;
+        snapshot.right = bounds.right;
+        snapshot.bottom = bounds.bottom;
+        snapshot.focusable = node.isFocusable();
+        snapshot.clickable = node.isClickable();
+        AccessibilityNodeInfo.RangeInfo range = node.getRangeInfo();
+        if (range != null) {
+            snapshot.rangeType = range.getType();
+            snapshot.rangeMin = range.getMin();
+            snapshot.rangeMax = range.getMax();
+            snapshot.rangeCurrent = range.getCurrent();
+        }
+
+        if (depth >= MAX_DEPTH) {
+            return snapshot;
+        }
+        int childCount = node.getChildCount();
+        for (int i = 0; i < childCount && budget[0] > 0; i++) {
+            AccessibilityNodeInfo child = node.getChild(i);
+            if (child == null) {
+                continue;
+            }
+            snapshot.children.add(copy(child, depth + 1, bounds, budget));
+            child.recycle();
+        }
+        return snapshot;
+    }
+
+    private static String toStringOrNull(CharSequence value) {
+        return value != null ? value.toString() : null;
+    }
+}
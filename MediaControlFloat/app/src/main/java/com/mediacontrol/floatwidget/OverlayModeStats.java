@@ -0,0 +1,94 @@
+package com.mediacontrol.floatwidget;
+
+import android.os.SystemClock;
+
+import java.util.Locale;
+
+/**
+ * 悬浮窗展开/收起两种模式的合成开销对比
+ * 记录每种模式的停留时间、窗口面积（SurfaceFlinger 需要混合的像素数）和重绘次数
+ * GPU 合成方式可配合 adb shell dumpsys SurfaceFlinger 查看对应图层
+ */
+public final class OverlayModeStats {
+    public static final int MODE_EXPANDED = 0;
+    public static final int MODE_COLLAPSED = 1;
+    private static final String[] MODE_NAMES = {"展开", "收起"};
+
+    private static final Object lock = new Object();
+    private static final long[] timeMs = new long[2];
+    private static final long[] draws = new long[2];
+    private static final long[] sizeChanges = new long[2];
+    private static final int[] width = new int[2];
+    private static final int[] height = new int[2];
+    private static int currentMode = -1;
+    private static long modeSince;
+
+    private OverlayModeStats() {
+    }
+
+    /**
+     * 切换到指定模式（mode 为 -1 表示悬浮窗已关闭）
+     */
+    public static void enterMode(int mode) {
+        synchronized (lock) {
+            long now = SystemClock.uptimeMillis();
+            if (currentMode >= 0) {
+                timeMs[currentMode] += now - modeSince;
+            }
+            currentMode = mode;
+            modeSince = now;
+        }
+    }
+
+    /**
+     * 悬浮窗完成一次绘制（主线程）
+     */
+    public static void onDraw() {
+        synchronized (lock) {
+            if (currentMode >= 0) {
+                draws[currentMode]++;
+            }
+        }
+    }
+
+    /**
+     * 悬浮窗尺寸变化
+     */
+    public static void onSizeChanged(int w, int h) {
+        synchronized (lock) {
+            if (currentMode >= 0) {
+                width[currentMode] = w;
+                height[currentMode] = h;
+                sizeChanges[currentMode]++;
+            }
+        }
+    }
+
+    public static String report() {
+        synchronized (lock) {
+            long now = SystemClock.uptimeMillis();
+            StringBuilder out = new StringBuilder("悬浮窗模式\n");
+            for (int mode = 0; mode < MODE_NAMES.length; mode++) {
+                long time = timeMs[mode] + (mode == currentMode ? now - modeSince : 0);
+                out.append(String.format(Locale.US,
+                    "  %s: 停留 %.1fs  窗口 %dx%d (%d 像素)  重绘 %d 次 (%.2f 次/秒)  尺寸变化 %d 次\n",
+                    MODE_NAMES[mode], time / 1000.0,
+                    width[mode], height[mode], (long) width[mode] * height[mode],
+                    draws[mode], time > 0 ? draws[mode] * 1000.0 / time : 0.0,
+                    sizeChanges[mode]));
+            }
+            return out.toString();
+        }
+    }
+
+    public static void reset() {
+        synchronized (lock) {
+            for (int mode = 0; mode < MODE_NAMES.length; mode++) {
+                timeMs[mode] = 0;
+                draws[mode] = 0;
+                sizeChanges[mode] = 0;
+            }
+            modeSince = SystemClock.uptimeMillis();
+        }
+    }
+}
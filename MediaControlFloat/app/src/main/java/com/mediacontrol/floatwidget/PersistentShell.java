@@ -0,0 +1,272 @@
+package com.mediacontrol.floatwidget;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 常驻 shell 会话 - 保持一个 sh 进程和它的管道，命令写入 stdin 执行
+ * 每条命令后追加一个带序号的结束标记，从 stdout 读到标记即得到该命令的退出码
+ * 命令队列有上限；进程退出后下一条命令会自动重启进程
+ * 命令超时时结束 sh 进程并换一个工作线程，后续命令在新进程中执行
+ * 挂起的子进程可能仍持有旧管道，旧工作线程等它退出后自行结束，不再取新命令
+ * 共享会话按引用计数关闭：使用它的组件在创建时 acquire、销毁时 release，最后一个 release 时才结束进程
+ */
+public class PersistentShell {
+    private static final String TAG = "PersistentShell";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String MARKER = "__MCF_DONE__";
+    private static final int QUEUE_CAPACITY = 16;
+    private static final long COMMAND_TIMEOUT_MS = 3000;
+
+    private static PersistentShell instance;
+    private static int users;
+    // 统计跨会话累计，会话关闭后仍保留
+    private static final AtomicLong timeouts = new AtomicLong();
+    private static final AtomicLong restarts = new AtomicLong();
+
+    /**
+     * 排队中的一条命令
+     */
+    private static class PendingCommand {
+        final long id;
+        final String command;
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile int exitCode = -1;
+
+        PendingCommand(long id, String command) {
+            this.id = id;
+            this.command = command;
+        }
+
+        void complete(int code) {
+            exitCode = code;
+            done.countDown();
+        }
+    }
+
+    private final BlockingQueue<PendingCommand> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicLong nextId = new AtomicLong();
+    // worker、running、进程及其管道只在持有 this 锁时修改；工作线程读写时使用局部引用
+    private Thread worker;
+    private Process process;
+    private OutputStream stdin;
+    private BufferedReader stdout;
+    private PendingCommand running;
+    private boolean processStarted;
+    private volatile boolean shutdown;
+
+    /**
+     * 进程内共享的 shell 会话
+     */
+    public static synchronized PersistentShell getInstance() {
+        if (instance == null || instance.shutdown) {
+            instance = new PersistentShell();
+        }
+        return instance;
+    }
+
+    /**
+     * 登记一个使用共享会话的组件（服务 onCreate 时调用）
+     */
+    public static synchronized void acquire() {
+        users++;
+    }
+
+    /**
+     * 注销一个使用者（服务 onDestroy 时调用），没有使用者时关闭共享会话，下次 getInstance 会创建新会话
+     */
+    public static synchronized void release() {
+        if (users > 0 && --users == 0 && instance != null) {
+            instance.shutdown();
+            instance = null;
+        }
+    }
+
+    private PersistentShell() {
+    }
+
+    /**
+     * 同步执行命令，返回退出码是否为0
+     * 队列已满、会话已关闭、超时或进程异常时返回false
+     */
+    public boolean run(String command) {
+        PendingCommand pending = new PendingCommand(nextId.incrementAndGet(), command);
+        if (shutdown || !queue.offer(pending)) {
+            AppLog.w(TAG, "shell 命令队列已满或已关闭，丢弃: {}", command);
+            return false;
+        }
+        ensureWorker();
+        try {
+            if (!pending.done.await(COMMAND_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                AppLog.w(TAG, "shell 命令超时: {}", command);
+                abort(pending);
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return pending.exitCode == 0;
+    }
+
+    /**
+     * 放弃一条超时的命令：还在排队则移出队列，正在执行则结束进程并换一个工作线程
+     */
+    private void abort(PendingCommand pending) {
+        timeouts.incrementAndGet();
+        if (queue.remove(pending)) {
+            return;
+        }
+        synchronized (this) {
+            if (running != pending) {
+                return;
+            }
+            running = null;
+            worker = null;
+            destroyProcess(process);
+        }
+        if (!shutdown) {
+            ensureWorker();
+        }
+    }
+
+    private synchronized void ensureWorker() {
+        if (worker == null || !worker.isAlive()) {
+            worker = new Thread(this::workerLoop, "PersistentShell");
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    private void workerLoop() {
+        Thread self = Thread.currentThread();
+        while (!shutdown) {
+            PendingCommand pending;
+            try {
+                pending = queue.take();
+            } catch (InterruptedException e) {
+                break;
+            }
+            synchronized (this) {
+                if (worker != self) {
+                    // 已被超时处理替换，命令交还给新的工作线程
+                    queue.offer(pending);
+                    return;
+                }
+                running = pending;
+            }
+            pending.complete(execute(pending));
+            synchronized (this) {
+                if (worker != self) {
+                    return;
+                }
+                running = null;
+            }
+        }
+        failPending();
+        synchronized (this) {
+            destroyProcess(process);
+        }
+    }
+
+    private int execute(PendingCommand pending) {
+        Process proc = null;
+        try {
+            OutputStream in;
+            BufferedReader out;
+            synchronized (this) {
+                ensureProcess();
+                proc = process;
+                in = stdin;
+                out = stdout;
+            }
+            String line = pending.command + "\necho " + MARKER + pending.id + " $?\n";
+            in.write(line.getBytes(UTF_8));
+            in.flush();
+
+            // 读取输出直到本命令的结束标记，其他输出丢弃
+            String expected = MARKER + pending.id + " ";
+            String output;
+            while ((output = out.readLine()) != null) {
+                if (output.startsWith(expected)) {
+                    return Integer.parseInt(output.substring(expected.length()).trim());
+                }
+            }
+            throw new IOException("shell 进程已退出");
+        } catch (Exception e) {
+            AppLog.w(TAG, "shell 命令执行失败，将重启进程", e);
+            synchronized (this) {
+                destroyProcess(proc);
+            }
+            return -1;
+        }
+    }
+
+    // 调用方持有 this 锁
+    private void ensureProcess() throws IOException {
+        if (process != null) {
+            return;
+        }
+        process = new ProcessBuilder("sh").redirectErrorStream(true).start();
+        stdin = process.getOutputStream();
+        stdout = new BufferedReader(new InputStreamReader(process.getInputStream(), UTF_8));
+        if (processStarted) {
+            AppLog.d(TAG, "shell 进程已重启，次数: {}", restarts.incrementAndGet());
+        }
+        processStarted = true;
+    }
+
+    // 调用方持有 this 锁；只结束仍是当前进程的 expected，避免旧工作线程误杀新进程
+    private void destroyProcess(Process expected) {
+        if (process != null && process == expected) {
+            process.destroy();
+            process = null;
+            stdin = null;
+            stdout = null;
+        }
+    }
+
+    private void failPending() {
+        PendingCommand pending;
+        while ((pending = queue.poll()) != null) {
+            pending.complete(-1);
+        }
+    }
+
+    /**
+     * 关闭会话：丢弃排队命令和正在执行的命令，并结束 shell 进程
+     */
+    public void shutdown() {
+        shutdown = true;
+        Thread current;
+        PendingCommand executing;
+        synchronized (this) {
+            current = worker;
+            executing = running;
+            // 中断无法唤醒阻塞在 readLine 的工作线程，直接结束进程
+            destroyProcess(process);
+        }
+        if (current != null) {
+            current.interrupt();
+        }
+        if (executing != null) {
+            executing.complete(-1);
+        }
+        failPending();
+    }
+
+    /**
+     * 进程内累计的超时次数和进程重启次数（用于诊断），不会创建会话
+     */
+    public static String getStats() {
+        return "shell 超时: " + timeouts.get() + ", 重启: " + restarts.get();
+    }
+}
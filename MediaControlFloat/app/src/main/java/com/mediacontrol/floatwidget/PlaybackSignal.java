@@ -0,0 +1,108 @@
+package com.mediacontrol.floatwidget;
+
+import android.os.SystemClock;
+
+/**
+ * 播放状态变化信号 - 记录已绑定的媒体会话推送的播放状态，按变化类型分别计数
+ * 按键注入后等待与按键对应的变化（播放/暂停切换、播放位置跳变），以确认按键确实被播放器处理
+ * 没有已绑定的会话时无法确认
+ */
+public final class PlaybackSignal {
+    // 变化类型
+    public static final int CHANGE_ANY = 0;       // 任意一次状态推送
+    public static final int CHANGE_PLAYING = 1;   // 播放/暂停切换
+    public static final int CHANGE_POSITION = 2;  // 播放位置偏离按时间推算的位置
+
+    // 偏离推算位置超过该值才算跳变，正常播放的位置漂移远小于此
+    private static final long POSITION_JUMP_MS = 2000;
+
+    private static final Object lock = new Object();
+    private static final long[] counts = new long[3];
+    private static boolean available;
+    // 上一次推送的状态，hasState 为false时无效
+    private static boolean hasState;
+    private static boolean playing;
+    private static long positionMs;
+    private static long positionAt;
+
+    private PlaybackSignal() {
+    }
+
+    /**
+     * 会话绑定或解绑时调用，解绑后丢弃上一次的状态
+     */
+    public static void setAvailable(boolean bound) {
+        synchronized (lock) {
+            available = bound;
+            hasState = false;
+        }
+    }
+
+    /**
+     * 是否有可用于确认按键效果的会话
+     */
+    public static boolean isAvailable() {
+        synchronized (lock) {
+            return available;
+        }
+    }
+
+    /**
+     * 某类变化至今发生的次数，作为 awaitChange 的起点
+     */
+    public static long count(int kind) {
+        synchronized (lock) {
+            return counts[kind];
+        }
+    }
+
+    /**
+     * 会话推送了新的播放状态
+     * @param nowPlaying 是否正在播放
+     * @param position 推送时刻的播放位置（毫秒），未知时为-1
+     */
+    public static void onPlaybackStateChanged(boolean nowPlaying, long position) {
+        long now = SystemClock.elapsedRealtime();
+        synchronized (lock) {
+            counts[CHANGE_ANY]++;
+            if (hasState) {
+                if (nowPlaying != playing) {
+                    counts[CHANGE_PLAYING]++;
+                }
+                if (position >= 0 && positionMs >= 0) {
+                    long expected = positionMs + (playing ? now - positionAt : 0);
+                    if (Math.abs(position - expected) >= POSITION_JUMP_MS) {
+                        counts[CHANGE_POSITION]++;
+                    }
+                }
+            }
+            hasState = true;
+            playing = nowPlaying;
+            positionMs = position;
+            positionAt = now;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * 等待某类变化的次数超过 since，超时返回false；不能在主线程调用
+     */
+    public static boolean awaitChange(int kind, long since, long timeoutMs) {
+        long deadline = SystemClock.uptimeMillis() + timeoutMs;
+        synchronized (lock) {
+            while (counts[kind] == since) {
+                long remaining = deadline - SystemClock.uptimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    lock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.mediacontrol.floatwidget;
+
+import android.graphics.Rect;
+import android.view.accessibility.AccessibilityEvent;
+import android.view.accessibility.AccessibilityNodeInfo;
+
+import com.mediacontrol.floatwidget.core.PlayerBoundsCache;
+
+import java.util.List;
+
+/**
+ * 播放器位置定位器 - 按播放器配置中的 view id 查找播放器节点（依赖 flagReportViewIds），缓存其屏幕范围
+ * 缓存按窗口ID和屏幕方向区分，窗口结构变化时失效；命中缓存时不访问节点树
+ */
+public class PlayerBoundsLocator {
+    private static final String TAG = "PlayerBoundsLocator";
+
+    // 这些变化只影响文字或描述，不会改变播放器范围
+    private static final int CONTENT_ONLY_CHANGES =
+        AccessibilityEvent.CONTENT_CHANGE_TYPE_TEXT | AccessibilityEvent.CONTENT_CHANGE_TYPE_CONTENT_DESCRIPTION;
+
+    private final PlayerBoundsCache cache = new PlayerBoundsCache();
+    private final int[] scratch = new int[4];
+
+    /**
+     * 读取缓存的播放器范围，不访问节点树；没有缓存时返回false
+     */
+    public boolean getCached(int windowId, int orientation, Rect out) {
+        if (windowId < 0) {
+            return false;
+        }
+        synchronized (scratch) {
+            if (!cache.get(windowId, orientation, scratch)) {
+                return false;
+            }
+            out.set(scratch[0], scratch[1], scratch[2], scratch[3]);
+            return true;
+        }
+    }
+
+    /**
+     * 在 root 所在窗口中按 viewIds 的顺序查找播放器节点并缓存其范围，找不到时返回false
+     */
+    public boolean locate(AccessibilityNodeInfo root, String[] viewIds, int orientation, Rect out) {
+        long start = System.nanoTime();
+        for (String viewId : viewIds) {
+            List<AccessibilityNodeInfo> nodes = root.findAccessibilityNodeInfosByViewId(viewId);
+            if (nodes == null || nodes.isEmpty()) {
+                continue;
+            }
+            boolean found = false;
+            for (AccessibilityNodeInfo node : nodes) {
+                if (!found && node.isVisibleToUser()) {
+                    node.getBoundsInScreen(out);
+                    found = !out.isEmpty();
+                }
+                node.recycle();
+            }
+            if (found) {
+                cache.put(root.getWindowId(), orientation, out.left, out.top, out.right, out.bottom);
+                AppLog.d(TAG, "已定位播放器 {}: {}, 耗时: {}us", viewId, out, (System.nanoTime() - start) / 1000);
+                return true;
+            }
+        }
+        AppLog.d(TAG, "未找到播放器节点，耗时: {}us", (System.nanoTime() - start) / 1000);
+        return false;
+    }
+
+    /**
+     * 处理窗口内容变化事件，只有结构变化才使该窗口的缓存失效，返回是否失效
+     */
+    public boolean onWindowContentChanged(int windowId, int changeTypes) {
+        if (changeTypes != AccessibilityEvent.CONTENT_CHANGE_TYPE_UNDEFINED
+                && (changeTypes & ~CONTENT_ONLY_CHANGES) == 0) {
+            return false;
+        }
+        return cache.invalidate(windowId);
+    }
+
+    public boolean isCached(int windowId) {
+        return cache.contains(windowId);
+    }
+
+    public void invalidate(int windowId) {
+        cache.invalidate(windowId);
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public String getStats() {
+        return cache.getStats();
+    }
+}
@@ -0,0 +1,91 @@
+package com.mediacontrol.floatwidget;
+
+import android.content.Context;
+
+import com.mediacontrol.floatwidget.core.PlayerProfile;
+import com.mediacontrol.floatwidget.core.PlayerProfileRegistry;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+
+/**
+ * 进程内共享的播放器配置，首次使用时从 res/raw/player_profiles.json 加载
+ * 新增支持的应用只需在该文件中添加一项
+ */
+public final class PlayerProfiles {
+    private static final String TAG = "PlayerProfiles";
+    private static volatile PlayerProfileRegistry registry;
+
+    private PlayerProfiles() {
+    }
+
+    public static PlayerProfileRegistry get(Context context) {
+        PlayerProfileRegistry result = registry;
+        if (result == null) {
+            synchronized (PlayerProfiles.class) {
+                result = registry;
+                if (result == null) {
+                    result = load(context.getApplicationContext());
+                    registry = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static PlayerProfileRegistry load(Context context) {
+        PlayerProfileRegistry result = new PlayerProfileRegistry();
+        try {
+            JSONArray entries = new JSONArray(readRaw(context, R.raw.player_profiles));
+            for (int i = 0; i < entries.length(); i++) {
+                try {
+                    result.register(parse(entries.getJSONObject(i)));
+                } catch (Exception e) {
+                    AppLog.e(TAG, "忽略无效的播放器配置 #{}", i, e);
+                }
+            }
+            AppLog.d(TAG, "已加载播放器配置: {}", result.getPackageNames());
+        } catch (Exception e) {
+            AppLog.e(TAG, "加载播放器配置失败", e);
+        }
+        return result;
+    }
+
+    private static PlayerProfile parse(JSONObject json) throws Exception {
+        PlayerProfile profile = new PlayerProfile();
+        profile.packageName = json.getString("package");
+        profile.name = json.optString("name", profile.packageName);
+        profile.seekMethod = PlayerProfileRegistry.parseSeekMethod(json.optString("seek"), profile.seekMethod);
+        profile.seekStepSeconds = json.optInt("seekStepSeconds", profile.seekStepSeconds);
+        profile.seekKeyCode = json.optInt("seekKeyCode", profile.seekKeyCode);
+        profile.playPauseMethod = PlayerProfileRegistry.parsePlayPauseMethod(
+            json.optString("playPause"), profile.playPauseMethod);
+        profile.stateMethod = PlayerProfileRegistry.parseStateMethod(json.optString("state"), profile.stateMethod);
+        JSONArray viewIds = json.optJSONArray("playerViewIds");
+        if (viewIds != null) {
+            profile.playerViewIds = new String[viewIds.length()];
+            for (int i = 0; i < viewIds.length(); i++) {
+                profile.playerViewIds[i] = viewIds.getString(i);
+            }
+        }
+        return profile;
+    }
+
+    private static String readRaw(Context context, int resId) throws Exception {
+        InputStream in = context.getResources().openRawResource(resId);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toString("UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.mediacontrol.floatwidget;
+
+import android.os.Handler;
+
+/**
+ * 命令流水线的阶段闸门 - 收到真实完成信号后进入下一阶段，超时作为兜底
+ * 只能在创建时传入的 Handler 所在线程上触发；阶段耗时（含超时）记入对应的直方图
+ */
+public class StageGate implements Runnable {
+    private static final String TAG = "StageGate";
+
+    private final Handler handler;
+    private final String stage;
+    private final LatencyHistogram histogram;
+    private final Runnable next;
+    private final long openedAt;
+    private final Runnable timeoutTask = () -> fire(true);
+    private boolean fired;
+
+    private StageGate(Handler handler, String stage, LatencyHistogram histogram, Runnable next) {
+        this.handler = handler;
+        this.stage = stage;
+        this.histogram = histogram;
+        this.next = next;
+        this.openedAt = System.nanoTime();
+    }
+
+    /**
+     * 打开一个阶段闸门，超过 timeoutMs 未收到信号时自动进入下一阶段
+     */
+    public static StageGate open(Handler handler, String stage, LatencyHistogram histogram,
+                                 long timeoutMs, Runnable next) {
+        StageGate gate = new StageGate(handler, stage, histogram, next);
+        handler.postDelayed(gate.timeoutTask, timeoutMs);
+        return gate;
+    }
+
+    /**
+     * 发出完成信号
+     */
+    @Override
+    public void run() {
+        fire(false);
+    }
+
+    public boolean isFired() {
+        return fired;
+    }
+
+    private void fire(boolean timedOut) {
+        if (fired) {
+            return;
+        }
+        fired = true;
+        handler.removeCallbacks(timeoutTask);
+        long elapsedNanos = System.nanoTime() - openedAt;
+        histogram.recordNanos(elapsedNanos);
+        long elapsed = elapsedNanos / 1000000;
+        if (timedOut) {
+            AppLog.w(TAG, "阶段超时: {}, {}ms", stage, elapsed);
+        } else {
+            AppLog.d(TAG, "阶段完成: {}, {}ms", stage, elapsed);
+        }
+        next.run();
+    }
+}
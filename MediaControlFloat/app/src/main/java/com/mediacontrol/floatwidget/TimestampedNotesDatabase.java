@@ -0,0 +1,183 @@
+package com.mediacontrol.floatwidget;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 带时间戳的笔记数据库 - 每条笔记一行，记录视频标识、播放位置和文本
+ * (video_id, position_ms) 上有索引用于按视频分页，notes_fts 为全文索引
+ * 所有数据库操作在后台线程执行，结果回调到主线程
+ */
+public class TimestampedNotesDatabase extends SQLiteOpenHelper {
+    private static final String TAG = "TimestampedNotesDb";
+    private static final String DATABASE_NAME = "timestamped_notes.db";
+    private static final int DATABASE_VERSION = 1;
+
+    /**
+     * 一条带时间戳的笔记
+     */
+    public static class Note {
+        public final long id;
+        public final String videoId;
+        public final long positionMs;
+        public final String text;
+
+        Note(long id, String videoId, long positionMs, String text) {
+            this.id = id;
+            this.videoId = videoId;
+            this.positionMs = positionMs;
+            this.text = text;
+        }
+    }
+
+    /**
+     * 查询结果回调（主线程）
+     */
+    public interface QueryCallback {
+        void onResult(List<Note> notes);
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    public TimestampedNotesDatabase(Context context) {
+        super(context.getApplicationContext(), DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE notes ("
+            + "id INTEGER PRIMARY KEY AUTOINCREMENT, "
+            + "video_id TEXT NOT NULL, "
+            + "position_ms INTEGER NOT NULL, "
+            + "text TEXT NOT NULL, "
+            + "created_at INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX idx_notes_video_position ON notes(video_id, position_ms)");
+
+        // 外部内容全文索引，由触发器与 notes 表保持同步
+        db.execSQL("CREATE VIRTUAL TABLE notes_fts USING fts4(content=\"notes\", text)");
+        db.execSQL("CREATE TRIGGER notes_ai AFTER INSERT ON notes BEGIN "
+            + "INSERT INTO notes_fts(docid, text) VALUES (new.id, new.text); END");
+        db.execSQL("CREATE TRIGGER notes_bd BEFORE DELETE ON notes BEGIN "
+            + "DELETE FROM notes_fts WHERE docid = old.id; END");
+        db.execSQL("CREATE TRIGGER notes_bu BEFORE UPDATE ON notes BEGIN "
+            + "DELETE FROM notes_fts WHERE docid = old.id; END");
+        db.execSQL("CREATE TRIGGER notes_au AFTER UPDATE ON notes BEGIN "
+            + "INSERT INTO notes_fts(docid, text) VALUES (new.id, new.text); END");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // 目前只有第一个版本
+    }
+
+    /**
+     * 添加一条笔记
+     */
+    public void addNote(String videoId, long positionMs, String text) {
+        execute(() -> {
+            try {
+                ContentValues values = new ContentValues();
+                values.put("video_id", videoId);
+                values.put("position_ms", positionMs);
+                values.put("text", text);
+                values.put("created_at", System.currentTimeMillis());
+                getWritableDatabase().insert("notes", null, values);
+            } catch (Exception e) {
+                AppLog.e(TAG, "添加笔记失败", e);
+            }
+        });
+    }
+
+    /**
+     * 按播放位置分页查询某个视频的笔记，返回 (afterPositionMs, afterId) 之后的最多 limit 条
+     * 以 (位置, id) 作为游标，同一位置的多条笔记不会在翻页时被跳过，翻页开销不随页数增长
+     * 第一页传入 afterPositionMs = -1、afterId = -1
+     */
+    public void queryByVideo(String videoId, long afterPositionMs, long afterId, int limit, QueryCallback callback) {
+        execute(() -> {
+            List<Note> notes = new ArrayList<>();
+            try {
+                String position = String.valueOf(afterPositionMs);
+                Cursor cursor = getReadableDatabase().rawQuery(
+                    "SELECT id, video_id, position_ms, text FROM notes "
+                        + "WHERE video_id = ? AND (position_ms > ? OR (position_ms = ? AND id > ?)) "
+                        + "ORDER BY position_ms, id LIMIT ?",
+                    new String[] {videoId, position, position, String.valueOf(afterId), String.valueOf(limit)});
+                readNotes(cursor, notes);
+            } catch (Exception e) {
+                AppLog.e(TAG, "查询笔记失败", e);
+            }
+            mainHandler.post(() -> callback.onResult(notes));
+        });
+    }
+
+    /**
+     * 全文搜索所有视频的笔记，query 按短语匹配（不解析 FTS 查询语法）
+     */
+    public void search(String query, int offset, int limit, QueryCallback callback) {
+        String phrase = "\"" + query.replace("\"", "\"\"") + "\"";
+        execute(() -> {
+            List<Note> notes = new ArrayList<>();
+            try {
+                Cursor cursor = getReadableDatabase().rawQuery(
+                    "SELECT n.id, n.video_id, n.position_ms, n.text FROM notes_fts f "
+                        + "JOIN notes n ON n.id = f.docid WHERE notes_fts MATCH ? "
+                        + "ORDER BY n.video_id, n.position_ms LIMIT ? OFFSET ?",
+                    new String[] {phrase, String.valueOf(limit), String.valueOf(offset)});
+                readNotes(cursor, notes);
+            } catch (Exception e) {
+                AppLog.e(TAG, "搜索笔记失败", e);
+            }
+            mainHandler.post(() -> callback.onResult(notes));
+        });
+    }
+
+    // 数据库关闭后的操作直接丢弃
+    private void execute(Runnable task) {
+        if (closed.get()) {
+            AppLog.w(TAG, "数据库已关闭，忽略操作");
+            return;
+        }
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            AppLog.w(TAG, "数据库已关闭，忽略操作");
+        }
+    }
+
+    private static void readNotes(Cursor cursor, List<Note> out) {
+        try {
+            while (cursor.moveToNext()) {
+                out.add(new Note(cursor.getLong(0), cursor.getString(1), cursor.getLong(2), cursor.getString(3)));
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * 在排队的操作完成后关闭数据库并释放后台线程，重复调用无效
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(super::close);
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,89 @@
+package com.mediacontrol.floatwidget;
+
+import android.view.Choreographer;
+import android.view.View;
+import android.view.WindowManager;
+
+/**
+ * 悬浮窗拖拽位置更新器 - 通过 Choreographer 按帧合并移动事件
+ * 每帧最多调用一次 updateViewLayout，总是应用最新的位置
+ * 只能在主线程使用
+ */
+public class WindowDragUpdater implements Choreographer.FrameCallback {
+    private final WindowManager windowManager;
+    private final View view;
+    private final WindowManager.LayoutParams params;
+
+    private int pendingX;
+    private int pendingY;
+    private boolean frameScheduled;
+
+    // 统计：收到的移动事件数与实际发出的窗口更新数
+    private long eventsReceived;
+    private long updatesIssued;
+
+    public WindowDragUpdater(WindowManager windowManager, View view, WindowManager.LayoutParams params) {
+        this.windowManager = windowManager;
+        this.view = view;
+        this.params = params;
+    }
+
+    /**
+     * 请求把窗口移动到指定位置，在下一帧统一应用
+     */
+    public void moveTo(int x, int y) {
+        eventsReceived++;
+        pendingX = x;
+        pendingY = y;
+        if (!frameScheduled) {
+            frameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    /**
+     * 立即应用尚未提交的位置（拖拽结束时调用）
+     */
+    public void flush() {
+        if (frameScheduled) {
+            Choreographer.getInstance().removeFrameCallback(this);
+            doFrame(0);
+        }
+    }
+
+    /**
+     * 把尚未提交的位置写入 params 但不更新窗口，由调用方与其他窗口属性合并为一次 updateViewLayout
+     */
+    public void mergePending() {
+        if (frameScheduled) {
+            Choreographer.getInstance().removeFrameCallback(this);
+            frameScheduled = false;
+            params.x = pendingX;
+            params.y = pendingY;
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameScheduled = false;
+        if (params.x == pendingX && params.y == pendingY) {
+            return;
+        }
+        params.x = pendingX;
+        params.y = pendingY;
+        try {
+            windowManager.updateViewLayout(view, params);
+            updatesIssued++;
+        } catch (Exception e) {
+            // 视图已被移除时忽略
+            AppLog.e("WindowDragUpdater", "更新悬浮窗位置失败", e);
+        }
+    }
+
+    /**
+     * 获取统计信息（用于诊断）
+     */
+    public String getStats() {
+        return "拖拽事件: " + eventsReceived + ", 窗口更新: " + updatesIssued;
+    }
+}
@@ -0,0 +1,54 @@
+package com.mediacontrol.floatwidget.benchmark;
+
+import com.mediacontrol.floatwidget.core.CommandQueue;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 命令队列合并：一次连续点击（回退为主，夹杂播放/暂停）入队后全部取出
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CommandQueueBenchmark {
+    private static final int TYPE_PLAY_PAUSE = 1;
+    private static final int TYPE_REWIND = 2;
+
+    @Param({"4", "32", "256"})
+    public int burstSize;
+
+    private int[] types;
+    private CommandQueue<CommandQueue.Entry> queue;
+
+    @Setup
+    public void setUp() {
+        types = new int[burstSize];
+        for (int i = 0; i < burstSize; i++) {
+            types[i] = i % 5 == 4 ? TYPE_PLAY_PAUSE : TYPE_REWIND;
+        }
+        queue = new CommandQueue<>(type ->
+            type == TYPE_PLAY_PAUSE ? CommandQueue.MERGE_TOGGLE : CommandQueue.MERGE_ACCUMULATE);
+    }
+
+    @Benchmark
+    public int offerAndDrain() {
+        for (int type : types) {
+            queue.offer(new CommandQueue.Entry(type, 1));
+        }
+        int total = 0;
+        CommandQueue.Entry entry;
+        while ((entry = queue.poll()) != null) {
+            total += entry.getRepeat();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,49 @@
+package com.mediacontrol.floatwidget.benchmark;
+
+import com.mediacontrol.floatwidget.core.SeekGestureGeometry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 跳转手势的坐标和时序计算
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GestureGeometryBenchmark {
+    // 常见屏幕范围：left, top, right, bottom
+    private final int[][] screens = {
+        {0, 0, 1080, 2340}, {0, 0, 1440, 3200}, {0, 0, 720, 1600}, {0, 0, 2340, 1080}
+    };
+    private int index;
+
+    @Benchmark
+    public SeekGestureGeometry.TapTarget seekTarget() {
+        int[] s = screens[index++ & 3];
+        return SeekGestureGeometry.computeSeekTarget(s[0], s[1], s[2], s[3], (index & 4) != 0);
+    }
+
+    @Benchmark
+    public SeekGestureGeometry.TapTarget playerSeekTarget() {
+        int[] s = screens[index++ & 3];
+        return SeekGestureGeometry.computePlayerSeekTarget(s[0], s[1], s[2], s[1] + s[2] * 9 / 16, (index & 4) != 0);
+    }
+
+    @Benchmark
+    public void multiTapPlan(Blackhole blackhole) {
+        int taps = (index++ & 7) + 1;
+        int strokes = SeekGestureGeometry.strokeCount(taps, 10);
+        for (int i = 0; i < strokes; i++) {
+            blackhole.consume(SeekGestureGeometry.strokeStartTime(i));
+        }
+        blackhole.consume(SeekGestureGeometry.multiTapDurationMs(taps));
+    }
+}
@@ -0,0 +1,116 @@
+package com.mediacontrol.floatwidget.benchmark;
+
+import com.mediacontrol.floatwidget.core.NotesStore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 笔记持久化：不同大小的笔记从快照加载，以及输入一段文字后追加写入日志
+ * 追加写入的耗时包含日志超过阈值时的压缩
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NotesPersistenceBenchmark {
+    private static final long TIMEOUT_MS = 30000;
+
+    @Param({"1024", "102400", "1048576"})
+    public int documentChars;
+
+    private File loadDir;
+    private File appendDir;
+    private NotesStore appendStore;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        final String document = buildDocument(documentChars);
+
+        // 加载用的目录：只有快照
+        loadDir = Files.createTempDirectory("notes-load").toFile();
+        NotesStore seed = new NotesStore(loadDir);
+        awaitLoad(seed, document);
+        seed.close();
+        seed.awaitIdle(TIMEOUT_MS);
+
+        // 追加用的目录：整个试验期间保持打开
+        appendDir = Files.createTempDirectory("notes-append").toFile();
+        appendStore = new NotesStore(appendDir);
+        cursor = awaitLoad(appendStore, document).length();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        appendStore.close();
+        appendStore.awaitIdle(TIMEOUT_MS);
+        deleteRecursively(loadDir);
+        deleteRecursively(appendDir);
+    }
+
+    @Benchmark
+    public String loadSnapshot() throws Exception {
+        NotesStore store = new NotesStore(loadDir);
+        String text = awaitLoad(store, null);
+        store.close();
+        store.awaitIdle(TIMEOUT_MS);
+        return text;
+    }
+
+    @Benchmark
+    public void typeAndFlush() throws Exception {
+        // 模拟输入一行文字（逐字符编辑），然后一次性追加到日志
+        String line = "记录 0123456789\n";
+        for (int i = 0; i < line.length(); i++) {
+            appendStore.recordEdit(cursor++, 0, line.subSequence(i, i + 1));
+        }
+        appendStore.flush();
+        appendStore.awaitIdle(TIMEOUT_MS);
+    }
+
+    private static String awaitLoad(NotesStore store, final String legacy) throws Exception {
+        final CountDownLatch loaded = new CountDownLatch(1);
+        final String[] result = new String[1];
+        store.load(legacy != null ? () -> legacy : null, Runnable::run, (text, importedLegacy, error) -> {
+            result[0] = text;
+            loaded.countDown();
+        });
+        if (!loaded.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            throw new IllegalStateException("加载笔记超时");
+        }
+        return result[0];
+    }
+
+    private static String buildDocument(int chars) {
+        StringBuilder out = new StringBuilder(chars);
+        int line = 0;
+        while (out.length() < chars) {
+            out.append("第").append(line++).append("行笔记 The quick brown fox 12:34\n");
+        }
+        out.setLength(chars);
+        return out.toString();
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
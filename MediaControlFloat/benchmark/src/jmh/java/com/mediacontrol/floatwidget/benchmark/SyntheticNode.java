@@ -0,0 +1,71 @@
+package com.mediacontrol.floatwidget.benchmark;
+
+import com.mediacontrol.floatwidget.core.NodeAdapter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 合成的节点树，用于在 JVM 上测量树搜索
+ */
+public class SyntheticNode {
+    public static final NodeAdapter<SyntheticNode> ADAPTER = new NodeAdapter<SyntheticNode>() {
+        @Override
+        public int getChildCount(SyntheticNode node) {
+            return node.children.size();
+        }
+
+        @Override
+        public SyntheticNode getChild(SyntheticNode node, int index) {
+            return node.children.get(index);
+        }
+
+        @Override
+        public CharSequence getContentDescription(SyntheticNode node) {
+            return node.contentDescription;
+        }
+
+        @Override
+        public boolean isFocusable(SyntheticNode node) {
+            return false;
+        }
+
+        @Override
+        public boolean isClickable(SyntheticNode node) {
+            return false;
+        }
+
+        @Override
+        public void release(SyntheticNode node) {
+        }
+    };
+
+    final List<SyntheticNode> children = new ArrayList<>();
+    String contentDescription;
+
+    /**
+     * 按广度优先构建 nodeCount 个节点、每个节点最多 fanOut 个子节点的树
+     * 约三分之一的节点带无关的内容描述；targetLabel 非空时放在深度优先遍历最后到达的叶子上
+     */
+    public static SyntheticNode build(int nodeCount, int fanOut, String targetLabel) {
+        List<SyntheticNode> nodes = new ArrayList<>(nodeCount);
+        SyntheticNode root = new SyntheticNode();
+        nodes.add(root);
+        for (int i = 1; i < nodeCount; i++) {
+            SyntheticNode node = new SyntheticNode();
+            if (i % 3 == 0) {
+                node.contentDescription = "视频标题 " + i;
+            }
+            nodes.get((i - 1) / fanOut).children.add(node);
+            nodes.add(node);
+        }
+        if (targetLabel != null) {
+            SyntheticNode last = root;
+            while (!last.children.isEmpty()) {
+                last = last.children.get(last.children.size() - 1);
+            }
+            last.contentDescription = targetLabel;
+        }
+        return root;
+    }
+}
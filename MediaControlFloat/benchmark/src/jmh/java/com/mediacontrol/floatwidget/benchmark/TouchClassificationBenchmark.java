@@ -0,0 +1,53 @@
+package com.mediacontrol.floatwidget.benchmark;
+
+import com.mediacontrol.floatwidget.core.DragClickClassifier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 触摸事件分类：一次完整的按下-移动-抬起序列（点击为小幅抖动，拖拽为长距离移动）
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TouchClassificationBenchmark {
+    @Param({"tap", "drag"})
+    public String gesture;
+
+    private final DragClickClassifier classifier = new DragClickClassifier(15, 300);
+    private float[] moveX;
+    private float[] moveY;
+
+    @Setup
+    public void setUp() {
+        int moves = "tap".equals(gesture) ? 4 : 120;
+        float step = "tap".equals(gesture) ? 1.5f : 6f;
+        moveX = new float[moves];
+        moveY = new float[moves];
+        for (int i = 0; i < moves; i++) {
+            moveX[i] = 500 + i * step;
+            moveY[i] = 800 + (i % 2) * step;
+        }
+    }
+
+    @Benchmark
+    public int classifySequence() {
+        classifier.onDown(500, 800, 0);
+        int offset = 0;
+        for (int i = 0; i < moveX.length; i++) {
+            if (classifier.onMove(moveX[i], moveY[i])) {
+                offset += classifier.getDeltaX();
+            }
+        }
+        return classifier.onUp(moveX.length * 8L) + offset;
+    }
+}
@@ -0,0 +1,44 @@
+package com.mediacontrol.floatwidget.benchmark;
+
+import com.mediacontrol.floatwidget.core.PlaybackStateDetector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 播放状态检测的树搜索：目标标签位于遍历最后到达的节点（最坏情况）或不存在（完整遍历）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TreeSearchBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int nodeCount;
+
+    @Param({"true", "false"})
+    public boolean targetPresent;
+
+    private SyntheticNode root;
+    private PlaybackStateDetector<SyntheticNode> detector;
+
+    @Setup
+    public void setUp() {
+        root = SyntheticNode.build(nodeCount, 6, targetPresent ? "暂停视频" : null);
+        // 放开默认的深度和节点上限，测量完整遍历
+        detector = new PlaybackStateDetector<>(SyntheticNode.ADAPTER,
+            PlaybackStateDetector.LabelTable.defaults(), Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public PlaybackStateDetector.Result detect() {
+        return detector.detect(root);
+    }
+}
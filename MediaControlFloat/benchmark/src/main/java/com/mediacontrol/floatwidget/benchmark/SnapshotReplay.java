@@ -0,0 +1,113 @@
+package com.mediacontrol.floatwidget.benchmark;
+
+import com.mediacontrol.floatwidget.core.FocusableNodeFinder;
+import com.mediacontrol.floatwidget.core.NodeSnapshot;
+import com.mediacontrol.floatwidget.core.NodeSnapshotCodec;
+import com.mediacontrol.floatwidget.core.PlaybackStateDetector;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 在 JVM 上回放设备采集的节点树快照（.nts），对每个快照运行播放状态检测和可聚焦节点查找
+ * 输出检测结果、访问节点数和耗时，便于在不连接设备的情况下比较遍历改动的效果
+ * 用法: ./gradlew :benchmark:replaySnapshots -Psnapshots=<目录或文件>
+ */
+public final class SnapshotReplay {
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURE_ROUNDS = 50;
+
+    private SnapshotReplay() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("用法: SnapshotReplay <快照目录或 .nts 文件>...");
+            System.exit(2);
+        }
+        List<File> files = collect(args);
+        if (files.isEmpty()) {
+            System.err.println("没有找到 .nts 快照文件");
+            System.exit(1);
+        }
+
+        PlaybackStateDetector<NodeSnapshot> detector = new PlaybackStateDetector<>(NodeSnapshot.ADAPTER);
+        FocusableNodeFinder<NodeSnapshot> finder = new FocusableNodeFinder<>(NodeSnapshot.ADAPTER);
+        for (File file : files) {
+            NodeSnapshot root = NodeSnapshotCodec.read(file);
+            replay(file.getName(), root, detector, finder);
+        }
+    }
+
+    static List<File> collect(String[] paths) {
+        List<File> files = new ArrayList<>();
+        for (String path : paths) {
+            File file = new File(path);
+            if (file.isDirectory()) {
+                File[] entries = file.listFiles((dir, name) -> name.endsWith(".nts"));
+                if (entries != null) {
+                    Arrays.sort(entries);
+                    files.addAll(Arrays.asList(entries));
+                }
+            } else if (file.isFile()) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    private static void replay(String name, NodeSnapshot root,
+                               PlaybackStateDetector<NodeSnapshot> detector,
+                               FocusableNodeFinder<NodeSnapshot> finder) {
+        PlaybackStateDetector.Result result = null;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            result = detector.detect(root);
+            finder.find(root);
+        }
+
+        long detectNanos = 0;
+        long findNanos = 0;
+        NodeSnapshot focusable = null;
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            long start = System.nanoTime();
+            result = detector.detect(root);
+            long mid = System.nanoTime();
+            focusable = finder.find(root);
+            findNanos += System.nanoTime() - mid;
+            detectNanos += mid - start;
+        }
+
+        System.out.println(name + " (" + root.countNodes() + " 个节点)");
+        System.out.println(String.format(Locale.US,
+            "  播放状态: %s  访问 %d 个节点%s  平均 %.1fus",
+            stateName(result.state), result.nodesVisited, result.truncated ? "（已截断）" : "",
+            detectNanos / 1000.0 / MEASURE_ROUNDS));
+        System.out.println(String.format(Locale.US,
+            "  可聚焦节点: %s  访问 %d 个节点  平均 %.1fus",
+            describe(focusable), finder.getLastNodesVisited(),
+            findNanos / 1000.0 / MEASURE_ROUNDS));
+    }
+
+    private static String stateName(int state) {
+        switch (state) {
+            case PlaybackStateDetector.STATE_PLAYING:
+                return "播放中";
+            case PlaybackStateDetector.STATE_PAUSED:
+                return "已暂停";
+            default:
+                return "未知";
+        }
+    }
+
+    private static String describe(NodeSnapshot node) {
+        if (node == null) {
+            return "无";
+        }
+        String id = node.viewId != null ? node.viewId : node.className;
+        return id + " [" + node.left + "," + node.top + "][" + node.right + "," + node.bottom + "]";
+    }
+}
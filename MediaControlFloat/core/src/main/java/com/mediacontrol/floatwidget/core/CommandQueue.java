@@ -0,0 +1,118 @@
+package com.mediacontrol.floatwidget.core;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * 媒体命令队列的排序与合并规则
+ * 与队尾同类型且相容的命令会被合并：切换类命令两两抵消，累加类命令累计次数
+ * 不是线程安全的，由调用方加锁
+ */
+public class CommandQueue<E extends CommandQueue.Entry> implements Iterable<E> {
+    public static final int ENQUEUED = 0;
+    public static final int MERGED = 1;
+    public static final int CANCELLED_OUT = 2;
+
+    public static final int MERGE_NONE = 0;
+    public static final int MERGE_TOGGLE = 1;
+    public static final int MERGE_ACCUMULATE = 2;
+
+    /**
+     * 队列中的一条命令
+     */
+    public static class Entry {
+        public final int type;
+        private int repeat;
+
+        public Entry(int type, int repeat) {
+            this.type = type;
+            this.repeat = repeat;
+        }
+
+        /**
+         * 合并后需要执行的次数
+         */
+        public int getRepeat() {
+            return repeat;
+        }
+
+        void addRepeat(int count) {
+            repeat += count;
+        }
+
+        /**
+         * 同类型的 other 能否合并到本命令，子类可按参数进一步限制
+         */
+        protected boolean canMergeWith(Entry other) {
+            return true;
+        }
+    }
+
+    /**
+     * 命令类型到合并方式的映射
+     */
+    public interface MergePolicy {
+        int mergeModeFor(int type);
+    }
+
+    private final ArrayDeque<E> pending = new ArrayDeque<>();
+    private final MergePolicy policy;
+    private long mergedCount;
+
+    public CommandQueue(MergePolicy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * 加入命令，返回 ENQUEUED、MERGED 或 CANCELLED_OUT
+     */
+    public int offer(E entry) {
+        E tail = pending.peekLast();
+        if (tail != null && tail.type == entry.type && tail.canMergeWith(entry)) {
+            int mode = policy.mergeModeFor(entry.type);
+            if (mode == MERGE_TOGGLE) {
+                pending.removeLast();
+                mergedCount += 2;
+                return CANCELLED_OUT;
+            } else if (mode == MERGE_ACCUMULATE) {
+                tail.addRepeat(entry.getRepeat());
+                mergedCount++;
+                return MERGED;
+            }
+        }
+        pending.addLast(entry);
+        return ENQUEUED;
+    }
+
+    public E poll() {
+        return pending.pollFirst();
+    }
+
+    public E peek() {
+        return pending.peekFirst();
+    }
+
+    public E peekLast() {
+        return pending.peekLast();
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    public void clear() {
+        pending.clear();
+    }
+
+    /**
+     * 被合并或抵消的命令总数
+     */
+    public long getMergedCount() {
+        return mergedCount;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return pending.iterator();
+    }
+}
@@ -0,0 +1,78 @@
+package com.mediacontrol.floatwidget.core;
+
+/**
+ * core 模块的日志出口 - 默认丢弃，由应用安装实际的输出（如 AppLog）
+ * 与 AppLog 相同使用 {} 参数化消息，级别未启用时不拼接字符串
+ */
+public final class CoreLog {
+    public static final int DEBUG = 3;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+
+    /**
+     * 日志输出，message 中的 {} 依次由参数替换（argCount 为有效参数个数）
+     */
+    public interface Sink {
+        boolean isLoggable(int level);
+
+        void log(int level, String tag, String message, Object a, Object b, int argCount, Throwable tr);
+    }
+
+    private static volatile Sink sink;
+
+    private CoreLog() {
+    }
+
+    public static void setSink(Sink newSink) {
+        sink = newSink;
+    }
+
+    public static void d(String tag, String msg) {
+        Sink current = sink;
+        if (current != null && current.isLoggable(DEBUG)) {
+            current.log(DEBUG, tag, msg, null, null, 0, null);
+        }
+    }
+
+    public static void d(String tag, String fmt, Object a) {
+        Sink current = sink;
+        if (current != null && current.isLoggable(DEBUG)) {
+            current.log(DEBUG, tag, fmt, a, null, 1, null);
+        }
+    }
+
+    public static void d(String tag, String fmt, Object a, Object b) {
+        Sink current = sink;
+        if (current != null && current.isLoggable(DEBUG)) {
+            current.log(DEBUG, tag, fmt, a, b, 2, null);
+        }
+    }
+
+    public static void w(String tag, String msg) {
+        Sink current = sink;
+        if (current != null && current.isLoggable(WARN)) {
+            current.log(WARN, tag, msg, null, null, 0, null);
+        }
+    }
+
+    public static void w(String tag, String fmt, Object a) {
+        Sink current = sink;
+        if (current != null && current.isLoggable(WARN)) {
+            current.log(WARN, tag, fmt, a, null, 1, null);
+        }
+    }
+
+    public static void w(String tag, String fmt, Object a, Object b) {
+        Sink current = sink;
+        if (current != null && current.isLoggable(WARN)) {
+            current.log(WARN, tag, fmt, a, b, 2, null);
+        }
+    }
+
+    public static void e(String tag, String msg, Throwable tr) {
+        Sink current = sink;
+        if (current != null && current.isLoggable(ERROR)) {
+            current.log(ERROR, tag, msg, null, null, 0, tr);
+        }
+    }
+}
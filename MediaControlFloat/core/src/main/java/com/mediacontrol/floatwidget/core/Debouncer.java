@@ -0,0 +1,59 @@
+package com.mediacontrol.floatwidget.core;
+
+/**
+ * 防抖器 - 最后一次触发后静默 delayMs 才执行动作
+ * 重复触发只会重新调度同一个预先创建的任务，不会产生新对象
+ */
+public class Debouncer {
+
+    /**
+     * 延迟任务调度器（如主线程 Handler）
+     */
+    public interface Scheduler {
+        void schedule(Runnable task, long delayMs);
+
+        void cancel(Runnable task);
+    }
+
+    private final Scheduler scheduler;
+    private final long delayMs;
+    private final Runnable action;
+    private final Runnable task = this::fire;
+    private boolean pending;
+
+    public Debouncer(Scheduler scheduler, long delayMs, Runnable action) {
+        this.scheduler = scheduler;
+        this.delayMs = delayMs;
+        this.action = action;
+    }
+
+    /**
+     * 触发一次，取消之前的调度并重新计时
+     */
+    public void trigger() {
+        if (pending) {
+            scheduler.cancel(task);
+        }
+        pending = true;
+        scheduler.schedule(task, delayMs);
+    }
+
+    /**
+     * 取消尚未执行的动作
+     */
+    public void cancel() {
+        if (pending) {
+            scheduler.cancel(task);
+            pending = false;
+        }
+    }
+
+    public boolean isPending() {
+        return pending;
+    }
+
+    private void fire() {
+        pending = false;
+        action.run();
+    }
+}
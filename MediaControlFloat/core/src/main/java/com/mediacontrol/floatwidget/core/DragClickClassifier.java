@@ -0,0 +1,105 @@
+package com.mediacontrol.floatwidget.core;
+
+/**
+ * 拖拽/点击判定 - 移动超过阈值即进入拖拽，未拖拽且按下时间足够短的抬起视为点击
+ * 长按由调用方在按下时启动计时，到时调用 onLongPressTimeout；判定为长按后不再进入拖拽，抬起也不视为点击
+ * 每个触摸监听器持有一个实例，只在主线程使用，不分配对象
+ */
+public class DragClickClassifier {
+    public static final int RESULT_NONE = 0;
+    public static final int RESULT_CLICK = 1;
+    public static final int RESULT_DRAG_END = 2;
+
+    private final int dragThreshold;
+    private final long maxClickDurationMs;
+
+    private float downX;
+    private float downY;
+    private long downTimeMs;
+    private boolean dragging;
+    private boolean longPressed;
+    private int deltaX;
+    private int deltaY;
+
+    /**
+     * @param dragThreshold      进入拖拽的移动阈值（像素）
+     * @param maxClickDurationMs 视为点击的最长按下时间，小于等于0时不判定点击
+     */
+    public DragClickClassifier(int dragThreshold, long maxClickDurationMs) {
+        this.dragThreshold = dragThreshold;
+        this.maxClickDurationMs = maxClickDurationMs;
+    }
+
+    public void onDown(float rawX, float rawY, long timeMs) {
+        downX = rawX;
+        downY = rawY;
+        downTimeMs = timeMs;
+        dragging = false;
+        longPressed = false;
+        deltaX = 0;
+        deltaY = 0;
+    }
+
+    /**
+     * 处理移动事件，返回当前是否处于拖拽状态
+     */
+    public boolean onMove(float rawX, float rawY) {
+        float dx = rawX - downX;
+        float dy = rawY - downY;
+        if (!dragging && !longPressed && (Math.abs(dx) > dragThreshold || Math.abs(dy) > dragThreshold)) {
+            dragging = true;
+        }
+        deltaX = (int) dx;
+        deltaY = (int) dy;
+        return dragging;
+    }
+
+    /**
+     * 长按计时到期，未进入拖拽时判定为长按并返回true
+     */
+    public boolean onLongPressTimeout() {
+        if (dragging || longPressed) {
+            return false;
+        }
+        longPressed = true;
+        return true;
+    }
+
+    /**
+     * 处理抬起事件，返回 RESULT_CLICK、RESULT_DRAG_END 或 RESULT_NONE（含已判定为长按）
+     */
+    public int onUp(long timeMs) {
+        boolean wasDragging = dragging;
+        boolean wasLongPressed = longPressed;
+        dragging = false;
+        longPressed = false;
+        if (wasDragging) {
+            return RESULT_DRAG_END;
+        }
+        if (wasLongPressed) {
+            return RESULT_NONE;
+        }
+        if (maxClickDurationMs > 0 && timeMs - downTimeMs < maxClickDurationMs) {
+            return RESULT_CLICK;
+        }
+        return RESULT_NONE;
+    }
+
+    public boolean isDragging() {
+        return dragging;
+    }
+
+    /**
+     * 最近一次移动相对按下位置的水平偏移
+     */
+    public int getDeltaX() {
+        return deltaX;
+    }
+
+    /**
+     * 最近一次移动相对按下位置的垂直偏移
+     */
+    public int getDeltaY() {
+        return deltaY;
+    }
+}
@@ -0,0 +1,52 @@
+package com.mediacontrol.floatwidget.core;
+
+/**
+ * 查找可以接收按键焦点的节点 - 深度优先，返回第一个可聚焦或可点击的节点
+ * 遍历过程中经过但未返回的节点都会被释放
+ */
+public class FocusableNodeFinder<N> {
+    private final NodeAdapter<N> adapter;
+    private int lastNodesVisited;
+
+    public FocusableNodeFinder(NodeAdapter<N> adapter) {
+        this.adapter = adapter;
+    }
+
+    /**
+     * 从 root 开始查找，没有找到时返回null
+     * 返回值可能是 root 本身；不是 root 时由调用方负责释放
+     */
+    public N find(N root) {
+        lastNodesVisited = 0;
+        return root != null ? visit(root) : null;
+    }
+
+    /**
+     * 最近一次查找访问的节点数
+     */
+    public int getLastNodesVisited() {
+        return lastNodesVisited;
+    }
+
+    private N visit(N node) {
+        lastNodesVisited++;
+        if (adapter.isFocusable(node) || adapter.isClickable(node)) {
+            return node;
+        }
+        int childCount = adapter.getChildCount(node);
+        for (int i = 0; i < childCount; i++) {
+            N child = adapter.getChild(node, i);
+            if (child == null) {
+                continue;
+            }
+            N found = visit(child);
+            if (found != child) {
+                adapter.release(child);
+            }
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,40 @@
+package com.mediacontrol.floatwidget.core;
+
+/**
+ * 触摸命中区域 - 布局变化时更新一次，之后每个触摸事件只做比较，不分配对象
+ * 与 android.graphics.Rect 相同采用左上闭、右下开的区间
+ */
+public class HitRegion {
+    private int left;
+    private int top;
+    private int right;
+    private int bottom;
+
+    public void set(int left, int top, int right, int bottom) {
+        this.left = left;
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+    }
+
+    public void setEmpty() {
+        left = 0;
+        top = 0;
+        right = 0;
+        bottom = 0;
+    }
+
+    public boolean isEmpty() {
+        return left >= right || top >= bottom;
+    }
+
+    /**
+     * 点 (x, y) 是否落在区域内，坐标先截断为整数像素
+     */
+    public boolean contains(float x, float y) {
+        int px = (int) x;
+        int py = (int) y;
+        return left < right && top < bottom
+            && px >= left && px < right && py >= top && py < bottom;
+    }
+}
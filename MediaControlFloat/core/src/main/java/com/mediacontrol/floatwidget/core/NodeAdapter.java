@@ -0,0 +1,24 @@
+package com.mediacontrol.floatwidget.core;
+
+/**
+ * 节点树的访问接口 - 让树搜索代码同时适用于 AccessibilityNodeInfo 和 JVM 上的合成/回放节点
+ */
+public interface NodeAdapter<N> {
+    int getChildCount(N node);
+
+    /**
+     * 获取子节点，可能返回null；返回的节点用完后需调用 release
+     */
+    N getChild(N node, int index);
+
+    CharSequence getContentDescription(N node);
+
+    boolean isFocusable(N node);
+
+    boolean isClickable(N node);
+
+    /**
+     * 释放 getChild 返回的节点（AccessibilityNodeInfo 需要回收）
+     */
+    void release(N node);
+}
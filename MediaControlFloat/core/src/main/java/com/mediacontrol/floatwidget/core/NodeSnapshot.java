@@ -0,0 +1,70 @@
+package com.mediacontrol.floatwidget.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 无障碍节点的离线快照 - 保存树搜索关心的属性和子节点结构
+ * 可由应用从实时节点树采集，再在 JVM 上通过 ADAPTER 回放给真实的搜索代码
+ */
+public class NodeSnapshot {
+    public static final int RANGE_NONE = -1;
+
+    public static final NodeAdapter<NodeSnapshot> ADAPTER = new NodeAdapter<NodeSnapshot>() {
+        @Override
+        public int getChildCount(NodeSnapshot node) {
+            return node.children.size();
+        }
+
+        @Override
+        public NodeSnapshot getChild(NodeSnapshot node, int index) {
+            return node.children.get(index);
+        }
+
+        @Override
+        public CharSequence getContentDescription(NodeSnapshot node) {
+            return node.contentDescription;
+        }
+
+        @Override
+        public boolean isFocusable(NodeSnapshot node) {
+            return node.focusable;
+        }
+
+        @Override
+        public boolean isClickable(NodeSnapshot node) {
+            return node.clickable;
+        }
+
+        @Override
+        public void release(NodeSnapshot node) {
+        }
+    };
+
+    public String className;
+    public String viewId;
+    public String contentDescription;
+    public int left;
+    public int top;
+    public int right;
+    public int bottom;
+    public boolean focusable;
+    public boolean clickable;
+    // 范围信息（如进度条），rangeType 为 RANGE_NONE 时无效
+    public int rangeType = RANGE_NONE;
+    public float rangeMin;
+    public float rangeMax;
+    public float rangeCurrent;
+    public final List<NodeSnapshot> children = new ArrayList<>();
+
+    /**
+     * 子树中的节点总数（含自身）
+     */
+    public int countNodes() {
+        int count = 1;
+        for (NodeSnapshot child : children) {
+            count += child.countNodes();
+        }
+        return count;
+    }
+}
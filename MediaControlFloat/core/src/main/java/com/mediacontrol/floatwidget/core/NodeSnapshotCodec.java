@@ -0,0 +1,209 @@
+package com.mediacontrol.floatwidget.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 节点树快照的紧凑二进制格式
+ * 文件头之后是字符串表（类名、视图ID、内容描述去重），然后按先序写出节点：
+ * 标志字节、三个字符串引用、边界（left/top/width/height，zigzag 变长整数）、可选的范围信息、子节点数
+ */
+public final class NodeSnapshotCodec {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int MAGIC = 0x4E545331; // "NTS1"
+    private static final int VERSION = 1;
+    private static final int MAX_DEPTH = 512;
+    private static final int MAX_STRING_BYTES = 1024 * 1024;
+
+    private static final int FLAG_FOCUSABLE = 1;
+    private static final int FLAG_CLICKABLE = 1 << 1;
+    private static final int FLAG_RANGE = 1 << 2;
+
+    private NodeSnapshotCodec() {
+    }
+
+    public static void write(NodeSnapshot root, File file) throws IOException {
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+        try {
+            write(root, out);
+        } finally {
+            out.close();
+        }
+    }
+
+    public static NodeSnapshot read(File file) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(file));
+        try {
+            return read(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    public static void write(NodeSnapshot root, OutputStream stream) throws IOException {
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        collectStrings(root, strings);
+
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        writeVarInt(out, strings.size());
+        for (String value : strings.keySet()) {
+            byte[] bytes = value.getBytes(UTF_8);
+            writeVarInt(out, bytes.length);
+            out.write(bytes);
+        }
+        writeNode(out, root, strings);
+        out.flush();
+    }
+
+    public static NodeSnapshot read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("不是节点树快照文件");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("不支持的快照版本: " + version);
+        }
+        int count = readVarInt(in);
+        List<String> strings = new ArrayList<>(Math.min(count, 4096));
+        for (int i = 0; i < count; i++) {
+            int length = readVarInt(in);
+            if (length < 0 || length > MAX_STRING_BYTES) {
+                throw new IOException("字符串长度无效: " + length);
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            strings.add(new String(bytes, UTF_8));
+        }
+        return readNode(in, strings, 0);
+    }
+
+    private static void collectStrings(NodeSnapshot node, Map<String, Integer> strings) {
+        intern(node.className, strings);
+        intern(node.viewId, strings);
+        intern(node.contentDescription, strings);
+        for (NodeSnapshot child : node.children) {
+            collectStrings(child, strings);
+        }
+    }
+
+    private static void intern(String value, Map<String, Integer> strings) {
+        if (value != null && !strings.containsKey(value)) {
+            strings.put(value, strings.size());
+        }
+    }
+
+    private static void writeNode(DataOutputStream out, NodeSnapshot node, Map<String, Integer> strings)
+            throws IOException {
+        int flags = 0;
+        if (node.focusable) flags |= FLAG_FOCUSABLE;
+        if (node.clickable) flags |= FLAG_CLICKABLE;
+        if (node.rangeType != NodeSnapshot.RANGE_NONE) flags |= FLAG_RANGE;
+        out.writeByte(flags);
+        writeStringRef(out, node.className, strings);
+        writeStringRef(out, node.viewId, strings);
+        writeStringRef(out, node.contentDescription, strings);
+        writeVarInt(out, zigzag(node.left));
+        writeVarInt(out, zigzag(node.top));
+        writeVarInt(out, zigzag(node.right - node.left));
+        writeVarInt(out, zigzag(node.bottom - node.top));
+        if ((flags & FLAG_RANGE) != 0) {
+            out.writeByte(node.rangeType);
+            out.writeFloat(node.rangeMin);
+            out.writeFloat(node.rangeMax);
+            out.writeFloat(node.rangeCurrent);
+        }
+        writeVarInt(out, node.children.size());
+        for (NodeSnapshot child : node.children) {
+            writeNode(out, child, strings);
+        }
+    }
+
+    private static NodeSnapshot readNode(DataInputStream in, List<String> strings, int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("快照层级过深");
+        }
+        NodeSnapshot node = new NodeSnapshot();
+        int flags = in.readUnsignedByte();
+        node.focusable = (flags & FLAG_FOCUSABLE) != 0;
+        node.clickable = (flags & FLAG_CLICKABLE) != 0;
+        node.className = readStringRef(in, strings);
+        node.viewId = readStringRef(in, strings);
+        node.contentDescription = readStringRef(in, strings);
+        node.left = unzigzag(readVarInt(in));
+        node.top = unzigzag(readVarInt(in));
+        node.right = node.left + unzigzag(readVarInt(in));
+        node.bottom = node.top + unzigzag(readVarInt(in));
+        if ((flags & FLAG_RANGE) != 0) {
+            node.rangeType = in.readUnsignedByte();
+            node.rangeMin = in.readFloat();
+            node.rangeMax = in.readFloat();
+            node.rangeCurrent = in.readFloat();
+        }
+        int childCount = readVarInt(in);
+        for (int i = 0; i < childCount; i++) {
+            node.children.add(readNode(in, strings, depth + 1));
+        }
+        return node;
+    }
+
+    // 字符串引用：0 表示null，其余为字符串表下标加1
+    private static void writeStringRef(DataOutputStream out, String value, Map<String, Integer> strings)
+            throws IOException {
+        writeVarInt(out, value == null ? 0 : strings.get(value) + 1);
+    }
+
+    private static String readStringRef(DataInputStream in, List<String> strings) throws IOException {
+        int ref = readVarInt(in);
+        if (ref == 0) {
+            return null;
+        }
+        if (ref > strings.size()) {
+            throw new IOException("字符串引用越界: " + ref);
+        }
+        return strings.get(ref - 1);
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("变长整数格式错误");
+    }
+}
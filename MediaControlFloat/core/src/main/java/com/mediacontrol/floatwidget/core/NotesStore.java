@@ -0,0 +1,370 @@
+package com.mediacontrol.floatwidget.core;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * 笔记存储 - 编辑增量追加写入日志文件，后台压缩为快照
+ * 启动时读取快照并重放日志恢复内容；日志末尾的残缺记录（崩溃时写了一半）会被截断
+ * 快照与日志都带有代号，压缩中途崩溃时旧日志不会被重复应用到新快照上
+ * 加载失败后存储变为只读，不再写日志或压缩，避免用不完整的内容覆盖磁盘上的快照
+ */
+public class NotesStore {
+    private static final String TAG = "NotesStore";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int SNAPSHOT_MAGIC = 0x4E534E50; // "NSNP"
+    private static final int JOURNAL_MAGIC = 0x4E4A524E;  // "NJRN"
+    private static final int JOURNAL_HEADER_BYTES = 12;
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+    private static final long COMPACT_THRESHOLD_BYTES = 64 * 1024;
+
+    /**
+     * 加载完成回调
+     * error 不为null时 text 只是读到的部分内容，存储已变为只读，调用方不应再提交编辑
+     */
+    public interface LoadCallback {
+        void onLoaded(String text, boolean importedLegacy, Exception error);
+    }
+
+    /**
+     * 一次编辑：将 [start, start + removed) 替换为 inserted
+     */
+    private static class Edit {
+        final int start;
+        final int removed;
+        final String inserted;
+
+        Edit(int start, int removed, String inserted) {
+            this.start = start;
+            this.removed = removed;
+            this.inserted = inserted;
+        }
+    }
+
+    private final File snapshotFile;
+    private final File journalFile;
+    // 所有实例共用一个写入线程，服务重建时新旧实例的文件操作不会交错
+    private static final ExecutorService io = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "NotesStoreIO");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 以下字段仅在 io 线程访问
+    private final StringBuilder document = new StringBuilder();
+    private FileOutputStream journalOut;
+    private long journalBytes;
+    private int generation;
+    private boolean readOnly;
+
+    // 调用方线程（主线程）累积的未写入编辑
+    private List<Edit> pendingEdits = new ArrayList<>();
+
+    public NotesStore(File directory) {
+        this.snapshotFile = new File(directory, "notes.snapshot");
+        this.journalFile = new File(directory, "notes.journal");
+    }
+
+    /**
+     * 在后台线程加载笔记；首次使用且没有任何存储文件时从 legacySource 导入
+     */
+    public void load(Callable<String> legacySource, Executor callbackExecutor, LoadCallback callback) {
+        io.execute(() -> {
+            boolean imported = false;
+            Exception error = null;
+            try {
+                if (!snapshotFile.exists() && !journalFile.exists() && legacySource != null) {
+                    String legacy = legacySource.call();
+                    document.append(legacy != null ? legacy : "");
+                    writeSnapshot();
+                    imported = true;
+                } else {
+                    readSnapshot();
+                    replayJournal();
+                }
+                openJournal();
+            } catch (Exception e) {
+                CoreLog.e(TAG, "加载笔记失败，存储转为只读", e);
+                error = e;
+                readOnly = true;
+                try {
+                    closeJournal();
+                } catch (IOException closeError) {
+                    CoreLog.e(TAG, "关闭笔记日志失败", closeError);
+                }
+            }
+            final String text = document.toString();
+            final boolean importedLegacy = imported;
+            final Exception loadError = error;
+            callbackExecutor.execute(() -> callback.onLoaded(text, importedLegacy, loadError));
+        });
+    }
+
+    /**
+     * 记录一次编辑（与 TextWatcher.onTextChanged 的参数对应）
+     */
+    public void recordEdit(int start, int removed, CharSequence inserted) {
+        pendingEdits.add(new Edit(start, removed, inserted.toString()));
+    }
+
+    /**
+     * 将累积的编辑追加到日志，日志过大时在后台压缩
+     */
+    public void flush() {
+        if (pendingEdits.isEmpty()) {
+            return;
+        }
+        final List<Edit> edits = pendingEdits;
+        pendingEdits = new ArrayList<>();
+        io.execute(() -> {
+            if (readOnly) {
+                return;
+            }
+            try {
+                appendToJournal(edits);
+                if (journalBytes > COMPACT_THRESHOLD_BYTES) {
+                    compact();
+                }
+            } catch (IOException e) {
+                CoreLog.e(TAG, "写入笔记日志失败", e);
+            }
+        });
+    }
+
+    /**
+     * 写入剩余编辑并压缩为快照
+     */
+    public void close() {
+        flush();
+        io.execute(() -> {
+            if (readOnly) {
+                return;
+            }
+            try {
+                if (journalBytes > JOURNAL_HEADER_BYTES) {
+                    compact();
+                }
+                closeJournal();
+            } catch (IOException e) {
+                CoreLog.e(TAG, "关闭笔记存储失败", e);
+            }
+        });
+    }
+
+    /**
+     * 等待此前提交的所有后台文件操作完成（用于服务退出前确认写入，以及基准测试）
+     */
+    public boolean awaitIdle(long timeoutMs) throws InterruptedException {
+        final CountDownLatch idle = new CountDownLatch(1);
+        io.execute(idle::countDown);
+        return idle.await(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void appendToJournal(List<Edit> edits) throws IOException {
+        if (journalOut == null) {
+            openJournal();
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        CRC32 crc = new CRC32();
+        for (Edit edit : edits) {
+            applyEdit(document, edit);
+            byte[] bytes = edit.inserted.getBytes(UTF_8);
+            int recordStart = buffer.size();
+            out.writeInt(edit.start);
+            out.writeInt(edit.removed);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            out.flush();
+            crc.reset();
+            crc.update(buffer.toByteArray(), recordStart, buffer.size() - recordStart);
+            out.writeInt((int) crc.getValue());
+        }
+        out.flush();
+        buffer.writeTo(journalOut);
+        journalOut.getFD().sync();
+        journalBytes += buffer.size();
+    }
+
+    /**
+     * 将当前内容写成新快照（代号+1），然后以新代号重置日志
+     */
+    private void compact() throws IOException {
+        closeJournal();
+        generation++;
+        writeSnapshot();
+        journalFile.delete();
+        openJournal();
+        CoreLog.d(TAG, "笔记已压缩为快照，长度: {}", document.length());
+    }
+
+    private void writeSnapshot() throws IOException {
+        byte[] bytes = document.toString().getBytes(UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+
+        File tmp = new File(snapshotFile.getPath() + ".tmp");
+        FileOutputStream fileOut = new FileOutputStream(tmp);
+        try {
+            DataOutputStream out = new DataOutputStream(fileOut);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(generation);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            out.writeInt((int) crc.getValue());
+            out.flush();
+            fileOut.getFD().sync();
+        } finally {
+            fileOut.close();
+        }
+        if (!tmp.renameTo(snapshotFile)) {
+            throw new IOException("无法替换快照文件");
+        }
+    }
+
+    private void readSnapshot() throws IOException {
+        if (!snapshotFile.exists()) {
+            return;
+        }
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)));
+        try {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("快照格式错误");
+            }
+            int snapshotGeneration = in.readInt();
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            CRC32 crc = new CRC32();
+            crc.update(bytes, 0, bytes.length);
+            if (in.readInt() != (int) crc.getValue()) {
+                throw new IOException("快照校验失败");
+            }
+            generation = snapshotGeneration;
+            document.setLength(0);
+            document.append(new String(bytes, UTF_8));
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * 重放与快照同代号的日志，遇到残缺或损坏的记录时截断日志
+     */
+    private void replayJournal() throws IOException {
+        if (!journalFile.exists()) {
+            return;
+        }
+        long validLength = 0;
+        boolean matches = false;
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)));
+        try {
+            if (in.readInt() == JOURNAL_MAGIC && in.readInt() == generation) {
+                in.readInt(); // 保留字段
+                matches = true;
+                validLength = JOURNAL_HEADER_BYTES;
+                CRC32 crc = new CRC32();
+                ByteArrayOutputStream record = new ByteArrayOutputStream();
+                DataOutputStream recordOut = new DataOutputStream(record);
+                while (true) {
+                    int start = in.readInt();
+                    int removed = in.readInt();
+                    int length = in.readInt();
+                    if (length < 0 || length > MAX_RECORD_BYTES) {
+                        break;
+                    }
+                    byte[] bytes = new byte[length];
+                    in.readFully(bytes);
+                    int storedCrc = in.readInt();
+
+                    record.reset();
+                    recordOut.writeInt(start);
+                    recordOut.writeInt(removed);
+                    recordOut.writeInt(length);
+                    recordOut.write(bytes);
+                    recordOut.flush();
+                    crc.reset();
+                    crc.update(record.toByteArray(), 0, record.size());
+                    if (storedCrc != (int) crc.getValue()) {
+                        break;
+                    }
+
+                    Edit edit = new Edit(start, removed, new String(bytes, UTF_8));
+                    if (!applyEdit(document, edit)) {
+                        break;
+                    }
+                    validLength += 16 + length;
+                }
+            }
+        } catch (EOFException e) {
+            // 日志末尾的残缺记录
+        } finally {
+            in.close();
+        }
+
+        if (!matches) {
+            // 旧代号的日志内容已包含在快照中
+            journalFile.delete();
+            return;
+        }
+        if (validLength < journalFile.length()) {
+            CoreLog.w(TAG, "截断损坏的笔记日志，保留长度: {}", validLength);
+            RandomAccessFile file = new RandomAccessFile(journalFile, "rw");
+            try {
+                file.setLength(validLength);
+            } finally {
+                file.close();
+            }
+        }
+        journalBytes = validLength;
+    }
+
+    private void openJournal() throws IOException {
+        boolean fresh = !journalFile.exists() || journalFile.length() < JOURNAL_HEADER_BYTES;
+        journalOut = new FileOutputStream(journalFile, !fresh);
+        if (fresh) {
+            DataOutputStream out = new DataOutputStream(journalOut);
+            out.writeInt(JOURNAL_MAGIC);
+            out.writeInt(generation);
+            out.writeInt(0);
+            out.flush();
+            journalOut.getFD().sync();
+            journalBytes = JOURNAL_HEADER_BYTES;
+        } else {
+            journalBytes = journalFile.length();
+        }
+    }
+
+    private void closeJournal() throws IOException {
+        if (journalOut != null) {
+            journalOut.close();
+            journalOut = null;
+        }
+    }
+
+    private static boolean applyEdit(StringBuilder target, Edit edit) {
+        int end = edit.start + edit.removed;
+        if (edit.start < 0 || edit.removed < 0 || end > target.length()) {
+            return false;
+        }
+        target.replace(edit.start, end, edit.inserted);
+        return true;
+    }
+}
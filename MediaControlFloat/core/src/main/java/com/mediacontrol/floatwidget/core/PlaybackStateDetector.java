@@ -0,0 +1,150 @@
+package com.mediacontrol.floatwidget.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 播放状态检测器 - 单次遍历节点树，同时匹配所有语言的播放/暂停标签
+ * 标签按子串匹配，"播放"也会命中"自动播放""播放列表"等节点，因此树中任意位置的暂停标签优先：
+ * 只有匹配到暂停才提前结束，播放匹配先记下，遍历完仍未找到暂停时才判定为已暂停
+ * 通过 NodeAdapter 访问节点，可用于实时的无障碍节点树，也可用于 JVM 上的合成树
+ */
+public class PlaybackStateDetector<N> {
+    public static final int STATE_UNKNOWN = 0;
+    public static final int STATE_PLAYING = 1;
+    public static final int STATE_PAUSED = 2;
+
+    private static final int DEFAULT_MAX_DEPTH = 40;
+    private static final int DEFAULT_MAX_NODES = 3000;
+
+    private final NodeAdapter<N> adapter;
+    private final LabelTable labels;
+    private final int maxDepth;
+    private final int maxNodes;
+
+    /**
+     * 播放/暂停按钮的多语言标签表
+     * 界面显示"暂停"说明正在播放，显示"播放"说明已暂停
+     */
+    public static class LabelTable {
+        private final List<String> playLabels = new ArrayList<>();
+        private final List<String> pauseLabels = new ArrayList<>();
+
+        /**
+         * 添加一种语言的播放/暂停标签
+         */
+        public LabelTable addLocale(String playLabel, String pauseLabel) {
+            playLabels.add(playLabel);
+            pauseLabels.add(pauseLabel);
+            return this;
+        }
+
+        /**
+         * 默认标签表（中文、英文）
+         */
+        public static LabelTable defaults() {
+            return new LabelTable()
+                .addLocale("播放", "暂停")
+                .addLocale("Play", "Pause");
+        }
+
+        /**
+         * 匹配内容描述，暂停标签优先于播放标签
+         */
+        int match(String description) {
+            for (int i = 0; i < pauseLabels.size(); i++) {
+                if (description.contains(pauseLabels.get(i))) {
+                    return STATE_PLAYING;
+                }
+            }
+            for (int i = 0; i < playLabels.size(); i++) {
+                if (description.contains(playLabels.get(i))) {
+                    return STATE_PAUSED;
+                }
+            }
+            return STATE_UNKNOWN;
+        }
+    }
+
+    /**
+     * 一次检测的结果及遍历开销
+     */
+    public static class Result {
+        public int state = STATE_UNKNOWN;
+        public int nodesVisited;
+        public long elapsedNanos;
+        public boolean truncated;
+
+        public boolean isPlaying() {
+            return state == STATE_PLAYING;
+        }
+
+        @Override
+        public String toString() {
+            return "state=" + state + ", nodes=" + nodesVisited
+                + ", time=" + (elapsedNanos / 1000) + "us"
+                + (truncated ? ", truncated" : "");
+        }
+    }
+
+    public PlaybackStateDetector(NodeAdapter<N> adapter) {
+        this(adapter, LabelTable.defaults(), DEFAULT_MAX_DEPTH, DEFAULT_MAX_NODES);
+    }
+
+    public PlaybackStateDetector(NodeAdapter<N> adapter, LabelTable labels, int maxDepth, int maxNodes) {
+        this.adapter = adapter;
+        this.labels = labels;
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * 从根节点开始检测播放状态，找到暂停标签即停止
+     * 遍历过程中获取的子节点都会被回收，根节点由调用方负责
+     */
+    public Result detect(N root) {
+        Result result = new Result();
+        long start = System.nanoTime();
+        if (root != null) {
+            visit(root, 0, result);
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     * 遍历子树，匹配到暂停标签时返回true（结束遍历）；匹配到播放标签只记录，继续查找暂停
+     */
+    private boolean visit(N node, int depth, Result result) {
+        if (result.nodesVisited >= maxNodes || depth > maxDepth) {
+            result.truncated = true;
+            return false;
+        }
+        result.nodesVisited++;
+
+        CharSequence contentDesc = adapter.getContentDescription(node);
+        if (contentDesc != null) {
+            int state = labels.match(contentDesc.toString());
+            if (state == STATE_PLAYING) {
+                result.state = STATE_PLAYING;
+                return true;
+            } else if (state == STATE_PAUSED) {
+                result.state = STATE_PAUSED;
+            }
+        }
+
+        int childCount = adapter.getChildCount(node);
+        for (int i = 0; i < childCount; i++) {
+            N child = adapter.getChild(node, i);
+            if (child == null) {
+                continue;
+            }
+            boolean found = visit(child, depth + 1, result);
+            adapter.release(child);
+            if (found || result.nodesVisited >= maxNodes) {
+                return found;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,81 @@
+package com.mediacontrol.floatwidget.core;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * 播放器在屏幕上的范围缓存 - 按窗口ID和屏幕方向分别保存
+ * 横竖屏切换使用不同的条目，窗口内容结构变化时由调用方按窗口失效
+ */
+public class PlayerBoundsCache {
+    private final Map<Long, int[]> entries = new HashMap<>();
+
+    // 统计信息
+    private long hits;
+    private long misses;
+    private long invalidations;
+
+    /**
+     * 读取缓存的范围到 out（left, top, right, bottom），没有缓存时返回false
+     */
+    public synchronized boolean get(int windowId, int orientation, int[] out) {
+        int[] bounds = entries.get(key(windowId, orientation));
+        if (bounds == null) {
+            misses++;
+            return false;
+        }
+        hits++;
+        System.arraycopy(bounds, 0, out, 0, 4);
+        return true;
+    }
+
+    public synchronized void put(int windowId, int orientation, int left, int top, int right, int bottom) {
+        entries.put(key(windowId, orientation), new int[] {left, top, right, bottom});
+    }
+
+    /**
+     * 使指定窗口所有方向的缓存失效，返回是否确实移除了条目
+     */
+    public synchronized boolean invalidate(int windowId) {
+        boolean removed = false;
+        Iterator<Long> keys = entries.keySet().iterator();
+        while (keys.hasNext()) {
+            if ((int) (keys.next() >>> 32) == windowId) {
+                keys.remove();
+                removed = true;
+            }
+        }
+        if (removed) {
+            invalidations++;
+        }
+        return removed;
+    }
+
+    public synchronized boolean contains(int windowId) {
+        for (Long key : entries.keySet()) {
+            if ((int) (key >>> 32) == windowId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * 获取统计信息（用于诊断）
+     */
+    public synchronized String getStats() {
+        return "播放器范围缓存 条目: " + entries.size()
+            + ", 命中: " + hits
+            + ", 未命中: " + misses
+            + ", 失效: " + invalidations;
+    }
+
+    private static long key(int windowId, int orientation) {
+        return ((long) windowId << 32) | (orientation & 0xFFFFFFFFL);
+    }
+}
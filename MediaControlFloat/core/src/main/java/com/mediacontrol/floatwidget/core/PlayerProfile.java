@@ -0,0 +1,34 @@
+package com.mediacontrol.floatwidget.core;
+
+/**
+ * 播放器配置 - 描述某个媒体应用如何跳转、播放/暂停和读取播放状态
+ * 由 PlayerProfileRegistry 按包名索引，配置来自数据文件
+ */
+public class PlayerProfile {
+    // 跳转方式
+    public static final int SEEK_DOUBLE_TAP = 0;  // 在播放器左右两侧连击（无障碍手势）
+    public static final int SEEK_SESSION = 1;     // 媒体会话 seekTo
+    public static final int SEEK_KEY = 2;         // 注入按键（如方向键）
+
+    // 播放/暂停方式
+    public static final int PLAY_PAUSE_SESSION = 0; // 优先媒体会话，无会话时注入媒体键
+    public static final int PLAY_PAUSE_KEY = 1;     // 总是注入媒体键
+
+    // 播放状态读取方式
+    public static final int STATE_SESSION = 0;       // 只读媒体会话
+    public static final int STATE_ACCESSIBILITY = 1; // 无会话时遍历界面读取按钮描述
+
+    public String packageName;
+    public String name;
+    public int seekMethod = SEEK_SESSION;
+    public int seekStepSeconds = 10;
+    public int seekKeyCode;
+    public int playPauseMethod = PLAY_PAUSE_SESSION;
+    public int stateMethod = STATE_SESSION;
+    public String[] playerViewIds = new String[0];
+
+    @Override
+    public String toString() {
+        return name + " (" + packageName + ")";
+    }
+}
@@ -0,0 +1,72 @@
+package com.mediacontrol.floatwidget.core;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 播放器配置注册表 - 按包名查找，O(1)
+ * 注册完成后只读，可在任意线程查询
+ */
+public class PlayerProfileRegistry {
+    private final Map<String, PlayerProfile> profiles = new HashMap<>();
+
+    public void register(PlayerProfile profile) {
+        if (profile.packageName == null || profile.packageName.isEmpty()) {
+            throw new IllegalArgumentException("播放器配置缺少包名: " + profile.name);
+        }
+        profiles.put(profile.packageName, profile);
+    }
+
+    /**
+     * 包名对应的配置，不支持的应用返回null
+     */
+    public PlayerProfile get(String packageName) {
+        return packageName != null ? profiles.get(packageName) : null;
+    }
+
+    public boolean contains(String packageName) {
+        return packageName != null && profiles.containsKey(packageName);
+    }
+
+    public Set<String> getPackageNames() {
+        return Collections.unmodifiableSet(profiles.keySet());
+    }
+
+    public int size() {
+        return profiles.size();
+    }
+
+    /**
+     * 解析跳转方式名称（数据文件中的 seek 字段），未知名称返回 fallback
+     */
+    public static int parseSeekMethod(String value, int fallback) {
+        if ("double_tap".equals(value)) {
+            return PlayerProfile.SEEK_DOUBLE_TAP;
+        } else if ("session".equals(value)) {
+            return PlayerProfile.SEEK_SESSION;
+        } else if ("key".equals(value)) {
+            return PlayerProfile.SEEK_KEY;
+        }
+        return fallback;
+    }
+
+    public static int parsePlayPauseMethod(String value, int fallback) {
+        if ("session".equals(value)) {
+            return PlayerProfile.PLAY_PAUSE_SESSION;
+        } else if ("key".equals(value)) {
+            return PlayerProfile.PLAY_PAUSE_KEY;
+        }
+        return fallback;
+    }
+
+    public static int parseStateMethod(String value, int fallback) {
+        if ("session".equals(value)) {
+            return PlayerProfile.STATE_SESSION;
+        } else if ("accessibility".equals(value)) {
+            return PlayerProfile.STATE_ACCESSIBILITY;
+        }
+        return fallback;
+    }
+}
@@ -0,0 +1,103 @@
+package com.mediacontrol.floatwidget.core;
+
+/**
+ * 跳转手势的几何与时序计算 - 不依赖 Android，可在 JVM 上测试和基准测试
+ * 优先按播放器节点的实际范围计算点击位置；找不到播放器时才按窗口比例估算，
+ * 比例基于用户反馈的有效位置 (96, 445)（1080x2340 竖屏）
+ */
+public final class SeekGestureGeometry {
+    // 连击间隔与单次点击时长（YouTube双击识别的最佳间隔）
+    public static final long MULTI_TAP_INTERVAL_MS = 200;
+    public static final long TAP_DURATION_MS = 50;
+
+    private static final int DEFAULT_X = 96;
+    private static final int DEFAULT_Y = 445;
+    private static final float X_RATIO = 96f / 1080f;  // 约8.9%
+    private static final float Y_RATIO = 445f / 2340f; // 约19%
+    private static final int MIN_X = 80;
+    private static final int MIN_TOP_OFFSET = 200;
+
+    /**
+     * 点击位置
+     */
+    public static final class TapTarget {
+        public final int x;
+        public final int y;
+
+        public TapTarget(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public String toString() {
+            return "(" + x + ", " + y + ")";
+        }
+    }
+
+    private SeekGestureGeometry() {
+    }
+
+    /**
+     * 根据播放器范围计算回退或快进的点击位置
+     * YouTube 双击跳转区域为播放器左右两侧各三分之一，取该区域水平中点、播放器垂直中点
+     * 适用于横屏、分屏和小窗播放
+     */
+    public static TapTarget computePlayerSeekTarget(int left, int top, int right, int bottom, boolean forward) {
+        int width = right - left;
+        int height = bottom - top;
+        if (width <= 0 || height <= 0) {
+            return new TapTarget(DEFAULT_X, DEFAULT_Y);
+        }
+        int offsetX = width / 6;
+        int targetX = forward ? right - offsetX : left + offsetX;
+        return new TapTarget(targetX, top + height / 2);
+    }
+
+    /**
+     * 找不到播放器节点时的后备：根据窗口范围按比例估算回退（左侧）或快进（右侧，镜像）的点击位置
+     * 范围无效时返回默认坐标
+     */
+    public static TapTarget computeSeekTarget(int left, int top, int right, int bottom, boolean forward) {
+        int width = right - left;
+        int height = bottom - top;
+        if (width <= 0 || height <= 0) {
+            return new TapTarget(DEFAULT_X, DEFAULT_Y);
+        }
+
+        int targetX = (int) (width * X_RATIO);
+        int targetY = top + (int) (height * Y_RATIO);
+
+        // 安全边界检查，避免点击系统区域
+        targetX = Math.max(MIN_X, Math.min(targetX, width / 3));
+        targetY = Math.max(top + MIN_TOP_OFFSET, Math.min(targetY, height / 2));
+
+        // 快进时镜像到右侧
+        if (forward) {
+            targetX = right - targetX;
+        }
+        return new TapTarget(targetX, targetY);
+    }
+
+    /**
+     * taps 次跳转需要的笔画数：前两次点击构成一次双击跳转，之后每次点击再累加一次
+     * 结果受系统单次手势的笔画上限约束
+     */
+    public static int strokeCount(int taps, int maxStrokes) {
+        return Math.min(Math.max(taps, 1) + 1, maxStrokes);
+    }
+
+    /**
+     * 第 index 个笔画的开始时间（毫秒）
+     */
+    public static long strokeStartTime(int index) {
+        return (long) index * MULTI_TAP_INTERVAL_MS;
+    }
+
+    /**
+     * 连击手势预计持续时间（毫秒）
+     */
+    public static long multiTapDurationMs(int taps) {
+        return (long) Math.max(taps, 1) * MULTI_TAP_INTERVAL_MS + TAP_DURATION_MS;
+    }
+}
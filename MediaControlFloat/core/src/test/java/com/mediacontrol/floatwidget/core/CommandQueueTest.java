@@ -0,0 +1,132 @@
+package com.mediacontrol.floatwidget.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 命令队列的合并规则：切换类两两抵消，累加类累计次数，只与队尾合并
+ */
+public class CommandQueueTest {
+    private static final int TOGGLE = 1;
+    private static final int ACCUMULATE = 2;
+    private static final int PLAIN = 3;
+
+    /**
+     * 只有同一位置的命令才能合并，用于验证 canMergeWith
+     */
+    private static class PositionedEntry extends CommandQueue.Entry {
+        final int position;
+
+        PositionedEntry(int type, int position) {
+            super(type, 1);
+            this.position = position;
+        }
+
+        @Override
+        protected boolean canMergeWith(CommandQueue.Entry other) {
+            return ((PositionedEntry) other).position == position;
+        }
+    }
+
+    private CommandQueue<CommandQueue.Entry> queue;
+
+    @Before
+    public void setUp() {
+        queue = new CommandQueue<>(type ->
+            type == TOGGLE ? CommandQueue.MERGE_TOGGLE
+                : type == ACCUMULATE ? CommandQueue.MERGE_ACCUMULATE : CommandQueue.MERGE_NONE);
+    }
+
+    @Test
+    public void twoTogglesCancelOut() {
+        assertEquals(CommandQueue.ENQUEUED, queue.offer(new CommandQueue.Entry(TOGGLE, 1)));
+        assertEquals(CommandQueue.CANCELLED_OUT, queue.offer(new CommandQueue.Entry(TOGGLE, 1)));
+        assertEquals(0, queue.size());
+        assertEquals(2, queue.getMergedCount());
+    }
+
+    @Test
+    public void thirdToggleIsEnqueuedAgain() {
+        queue.offer(new CommandQueue.Entry(TOGGLE, 1));
+        queue.offer(new CommandQueue.Entry(TOGGLE, 1));
+        assertEquals(CommandQueue.ENQUEUED, queue.offer(new CommandQueue.Entry(TOGGLE, 1)));
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    public void accumulatingEntriesAddRepeats() {
+        CommandQueue.Entry first = new CommandQueue.Entry(ACCUMULATE, 1);
+        queue.offer(first);
+        assertEquals(CommandQueue.MERGED, queue.offer(new CommandQueue.Entry(ACCUMULATE, 1)));
+        assertEquals(CommandQueue.MERGED, queue.offer(new CommandQueue.Entry(ACCUMULATE, 3)));
+        assertEquals(1, queue.size());
+        assertEquals(5, first.getRepeat());
+        assertEquals(2, queue.getMergedCount());
+    }
+
+    @Test
+    public void plainEntriesNeverMerge() {
+        queue.offer(new CommandQueue.Entry(PLAIN, 1));
+        assertEquals(CommandQueue.ENQUEUED, queue.offer(new CommandQueue.Entry(PLAIN, 1)));
+        assertEquals(2, queue.size());
+        assertEquals(0, queue.getMergedCount());
+    }
+
+    @Test
+    public void onlyTailIsMergedAcrossTypes() {
+        CommandQueue.Entry rewind = new CommandQueue.Entry(ACCUMULATE, 1);
+        queue.offer(rewind);
+        queue.offer(new CommandQueue.Entry(TOGGLE, 1));
+        // 队尾是播放/暂停，新的回退不能越过它与前面的回退合并
+        assertEquals(CommandQueue.ENQUEUED, queue.offer(new CommandQueue.Entry(ACCUMULATE, 1)));
+        assertEquals(3, queue.size());
+        assertEquals(1, rewind.getRepeat());
+    }
+
+    @Test
+    public void toggleCancelsOnlyAgainstTail() {
+        queue.offer(new CommandQueue.Entry(TOGGLE, 1));
+        queue.offer(new CommandQueue.Entry(ACCUMULATE, 1));
+        assertEquals(CommandQueue.ENQUEUED, queue.offer(new CommandQueue.Entry(TOGGLE, 1)));
+        assertEquals(3, queue.size());
+    }
+
+    @Test
+    public void canMergeWithRestrictsMerging() {
+        CommandQueue<PositionedEntry> positioned = new CommandQueue<>(type -> CommandQueue.MERGE_ACCUMULATE);
+        PositionedEntry left = new PositionedEntry(ACCUMULATE, 10);
+        positioned.offer(left);
+        assertEquals(CommandQueue.MERGED, positioned.offer(new PositionedEntry(ACCUMULATE, 10)));
+        assertEquals(CommandQueue.ENQUEUED, positioned.offer(new PositionedEntry(ACCUMULATE, 20)));
+        assertEquals(2, left.getRepeat());
+        assertEquals(2, positioned.size());
+    }
+
+    @Test
+    public void peekAndPollFollowFifoOrder() {
+        CommandQueue.Entry first = new CommandQueue.Entry(PLAIN, 1);
+        CommandQueue.Entry second = new CommandQueue.Entry(TOGGLE, 1);
+        queue.offer(first);
+        queue.offer(second);
+        assertSame(first, queue.peek());
+        assertSame(second, queue.peekLast());
+        assertSame(first, queue.poll());
+        assertSame(second, queue.poll());
+        assertNull(queue.peek());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void clearKeepsMergedCount() {
+        queue.offer(new CommandQueue.Entry(ACCUMULATE, 1));
+        queue.offer(new CommandQueue.Entry(ACCUMULATE, 1));
+        queue.clear();
+        assertEquals(0, queue.size());
+        assertEquals(1, queue.getMergedCount());
+        assertEquals(CommandQueue.ENQUEUED, queue.offer(new CommandQueue.Entry(ACCUMULATE, 1)));
+    }
+}
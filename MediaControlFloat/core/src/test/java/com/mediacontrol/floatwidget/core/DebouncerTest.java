@@ -0,0 +1,114 @@
+package com.mediacontrol.floatwidget.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 防抖器在虚拟时钟上的调度行为
+ */
+public class DebouncerTest {
+    private static final long DELAY_MS = 500;
+
+    /**
+     * 按虚拟时间执行任务的调度器，记录每次调度的任务
+     */
+    private static class FakeScheduler implements Debouncer.Scheduler {
+        final List<Runnable> scheduled = new ArrayList<>();
+        Runnable task;
+        long dueAt;
+        long now;
+
+        @Override
+        public void schedule(Runnable task, long delayMs) {
+            scheduled.add(task);
+            this.task = task;
+            this.dueAt = now + delayMs;
+        }
+
+        @Override
+        public void cancel(Runnable task) {
+            if (this.task == task) {
+                this.task = null;
+            }
+        }
+
+        void advance(long ms) {
+            now += ms;
+            if (task != null && now >= dueAt) {
+                Runnable due = task;
+                task = null;
+                due.run();
+            }
+        }
+    }
+
+    private FakeScheduler scheduler;
+    private int fired;
+    private Debouncer debouncer;
+
+    @Before
+    public void setUp() {
+        scheduler = new FakeScheduler();
+        fired = 0;
+        debouncer = new Debouncer(scheduler, DELAY_MS, () -> fired++);
+    }
+
+    @Test
+    public void firesOnceAfterQuietPeriod() {
+        debouncer.trigger();
+        assertTrue(debouncer.isPending());
+        scheduler.advance(DELAY_MS - 1);
+        assertEquals(0, fired);
+        scheduler.advance(1);
+        assertEquals(1, fired);
+        assertFalse(debouncer.isPending());
+    }
+
+    @Test
+    public void retriggerRestartsTimer() {
+        debouncer.trigger();
+        scheduler.advance(DELAY_MS - 100);
+        debouncer.trigger();
+        scheduler.advance(DELAY_MS - 100);
+        assertEquals(0, fired);
+        scheduler.advance(100);
+        assertEquals(1, fired);
+    }
+
+    @Test
+    public void burstOfTriggersFiresOnce() {
+        for (int i = 0; i < 10; i++) {
+            debouncer.trigger();
+            scheduler.advance(10);
+        }
+        scheduler.advance(DELAY_MS);
+        assertEquals(1, fired);
+    }
+
+    @Test
+    public void cancelDropsPendingAction() {
+        debouncer.trigger();
+        debouncer.cancel();
+        assertFalse(debouncer.isPending());
+        scheduler.advance(DELAY_MS * 2);
+        assertEquals(0, fired);
+    }
+
+    @Test
+    public void reusesSameTaskForEveryTrigger() {
+        debouncer.trigger();
+        debouncer.trigger();
+        debouncer.trigger();
+        assertEquals(3, scheduler.scheduled.size());
+        assertSame(scheduler.scheduled.get(0), scheduler.scheduled.get(1));
+        assertSame(scheduler.scheduled.get(0), scheduler.scheduled.get(2));
+    }
+}
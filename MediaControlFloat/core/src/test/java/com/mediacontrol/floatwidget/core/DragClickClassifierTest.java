@@ -0,0 +1,129 @@
+package com.mediacontrol.floatwidget.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 拖拽/点击判定的阈值与时序规则
+ */
+public class DragClickClassifierTest {
+    private static final int THRESHOLD = 10;
+    private static final long MAX_CLICK_MS = 300;
+
+    private DragClickClassifier classifier;
+
+    @Before
+    public void setUp() {
+        classifier = new DragClickClassifier(THRESHOLD, MAX_CLICK_MS);
+    }
+
+    @Test
+    public void shortTapWithoutMovementIsClick() {
+        classifier.onDown(100, 100, 1000);
+        assertEquals(DragClickClassifier.RESULT_CLICK, classifier.onUp(1100));
+    }
+
+    @Test
+    public void movementWithinThresholdIsStillClick() {
+        classifier.onDown(100, 100, 1000);
+        assertFalse(classifier.onMove(100 + THRESHOLD, 100 - THRESHOLD));
+        assertEquals(DragClickClassifier.RESULT_CLICK, classifier.onUp(1100));
+    }
+
+    @Test
+    public void movementBeyondThresholdStartsDrag() {
+        classifier.onDown(100, 100, 1000);
+        assertTrue(classifier.onMove(100 + THRESHOLD + 1, 100));
+        assertTrue(classifier.isDragging());
+        assertEquals(DragClickClassifier.RESULT_DRAG_END, classifier.onUp(1100));
+        assertFalse(classifier.isDragging());
+    }
+
+    @Test
+    public void verticalMovementAlsoStartsDrag() {
+        classifier.onDown(100, 100, 1000);
+        assertTrue(classifier.onMove(100, 100 - THRESHOLD - 1));
+    }
+
+    @Test
+    public void dragStaysActiveAfterReturningToStart() {
+        classifier.onDown(100, 100, 1000);
+        classifier.onMove(150, 100);
+        assertTrue(classifier.onMove(100, 100));
+        assertEquals(DragClickClassifier.RESULT_DRAG_END, classifier.onUp(1100));
+    }
+
+    @Test
+    public void deltaTracksLatestMoveRelativeToDown() {
+        classifier.onDown(100, 200, 1000);
+        classifier.onMove(130.7f, 180.2f);
+        assertEquals(30, classifier.getDeltaX());
+        assertEquals(-19, classifier.getDeltaY());
+        classifier.onMove(90, 260);
+        assertEquals(-10, classifier.getDeltaX());
+        assertEquals(60, classifier.getDeltaY());
+    }
+
+    @Test
+    public void longPressWithoutMovementIsNotClick() {
+        classifier.onDown(100, 100, 1000);
+        assertEquals(DragClickClassifier.RESULT_NONE, classifier.onUp(1000 + MAX_CLICK_MS));
+    }
+
+    @Test
+    public void clickDisabledWhenMaxDurationNotPositive() {
+        DragClickClassifier dragOnly = new DragClickClassifier(THRESHOLD, 0);
+        dragOnly.onDown(100, 100, 1000);
+        assertEquals(DragClickClassifier.RESULT_NONE, dragOnly.onUp(1001));
+    }
+
+    @Test
+    public void downResetsPreviousGesture() {
+        classifier.onDown(100, 100, 1000);
+        classifier.onMove(200, 200);
+        classifier.onDown(300, 300, 2000);
+        assertFalse(classifier.isDragging());
+        assertEquals(0, classifier.getDeltaX());
+        assertEquals(0, classifier.getDeltaY());
+        assertEquals(DragClickClassifier.RESULT_CLICK, classifier.onUp(2050));
+    }
+
+    @Test
+    public void longPressTimeoutWithoutDragIsLongPress() {
+        classifier.onDown(100, 100, 1000);
+        classifier.onMove(100 + THRESHOLD, 100);
+        assertTrue(classifier.onLongPressTimeout());
+        // 只触发一次，抬起时不再视为点击
+        assertFalse(classifier.onLongPressTimeout());
+        assertEquals(DragClickClassifier.RESULT_NONE, classifier.onUp(1100));
+    }
+
+    @Test
+    public void longPressTimeoutDuringDragIsIgnored() {
+        classifier.onDown(100, 100, 1000);
+        classifier.onMove(200, 100);
+        assertFalse(classifier.onLongPressTimeout());
+        assertEquals(DragClickClassifier.RESULT_DRAG_END, classifier.onUp(1600));
+    }
+
+    @Test
+    public void movementAfterLongPressDoesNotStartDrag() {
+        classifier.onDown(100, 100, 1000);
+        assertTrue(classifier.onLongPressTimeout());
+        assertFalse(classifier.onMove(300, 300));
+        assertEquals(DragClickClassifier.RESULT_NONE, classifier.onUp(1700));
+    }
+
+    @Test
+    public void nextPressAfterLongPressCanClick() {
+        classifier.onDown(100, 100, 1000);
+        classifier.onLongPressTimeout();
+        classifier.onUp(1600);
+        classifier.onDown(100, 100, 2000);
+        assertEquals(DragClickClassifier.RESULT_CLICK, classifier.onUp(2100));
+    }
+}
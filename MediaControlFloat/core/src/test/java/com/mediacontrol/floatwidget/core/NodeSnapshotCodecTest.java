@@ -0,0 +1,199 @@
+package com.mediacontrol.floatwidget.core;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 节点树快照的编解码往返和损坏输入的处理
+ */
+public class NodeSnapshotCodecTest {
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private static NodeSnapshot node(String className, String viewId, String description,
+                                     int left, int top, int right, int bottom) {
+        NodeSnapshot node = new NodeSnapshot();
+        node.className = className;
+        node.viewId = viewId;
+        node.contentDescription = description;
+        node.left = left;
+        node.top = top;
+        node.right = right;
+        node.bottom = bottom;
+        return node;
+    }
+
+    // 覆盖各类字段：重复字符串、null 字符串、负坐标、范围信息、多层子节点
+    private static NodeSnapshot sampleTree() {
+        NodeSnapshot root = node("android.widget.FrameLayout", null, null, 0, 0, 1080, 2340);
+        NodeSnapshot player = node("android.view.ViewGroup", "com.google.android.youtube:id/player",
+            "视频播放器", 0, 200, 1080, 808);
+        player.clickable = true;
+        NodeSnapshot pause = node("android.widget.ImageView", "com.google.android.youtube:id/play_pause",
+            "暂停视频", 490, 454, 590, 554);
+        pause.clickable = true;
+        pause.focusable = true;
+        NodeSnapshot seekBar = node("android.widget.SeekBar", "com.google.android.youtube:id/time_bar",
+            null, -12, 790, 1092, 826);
+        seekBar.rangeType = 0;
+        seekBar.rangeMin = 0f;
+        seekBar.rangeMax = 3600.5f;
+        seekBar.rangeCurrent = 1234.25f;
+        player.children.add(pause);
+        player.children.add(seekBar);
+        root.children.add(player);
+        root.children.add(node("android.widget.FrameLayout", null, "Play", 0, 808, 1080, 2340));
+        return root;
+    }
+
+    private static void assertSameTree(NodeSnapshot expected, NodeSnapshot actual) {
+        assertEquals(expected.className, actual.className);
+        assertEquals(expected.viewId, actual.viewId);
+        assertEquals(expected.contentDescription, actual.contentDescription);
+        assertEquals(expected.left, actual.left);
+        assertEquals(expected.top, actual.top);
+        assertEquals(expected.right, actual.right);
+        assertEquals(expected.bottom, actual.bottom);
+        assertEquals(expected.focusable, actual.focusable);
+        assertEquals(expected.clickable, actual.clickable);
+        assertEquals(expected.rangeType, actual.rangeType);
+        assertEquals(expected.rangeMin, actual.rangeMin, 0f);
+        assertEquals(expected.rangeMax, actual.rangeMax, 0f);
+        assertEquals(expected.rangeCurrent, actual.rangeCurrent, 0f);
+        assertEquals(expected.children.size(), actual.children.size());
+        for (int i = 0; i < expected.children.size(); i++) {
+            assertSameTree(expected.children.get(i), actual.children.get(i));
+        }
+    }
+
+    private static byte[] encode(NodeSnapshot root) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NodeSnapshotCodec.write(root, out);
+        return out.toByteArray();
+    }
+
+    private static NodeSnapshot decode(byte[] bytes) throws IOException {
+        return NodeSnapshotCodec.read(new ByteArrayInputStream(bytes));
+    }
+
+    @Test
+    public void streamRoundTripPreservesTree() throws IOException {
+        NodeSnapshot root = sampleTree();
+        NodeSnapshot copy = decode(encode(root));
+        assertSameTree(root, copy);
+        assertEquals(root.countNodes(), copy.countNodes());
+    }
+
+    @Test
+    public void fileRoundTripPreservesTree() throws IOException {
+        NodeSnapshot root = sampleTree();
+        File file = temp.newFile("tree.nts");
+        NodeSnapshotCodec.write(root, file);
+        assertSameTree(root, NodeSnapshotCodec.read(file));
+    }
+
+    @Test
+    public void singleNodeWithoutStringsRoundTrips() throws IOException {
+        NodeSnapshot root = node(null, null, null, 0, 0, 0, 0);
+        NodeSnapshot copy = decode(encode(root));
+        assertSameTree(root, copy);
+        assertNull(copy.className);
+        assertTrue(copy.children.isEmpty());
+    }
+
+    @Test
+    public void extremeCoordinatesRoundTrip() throws IOException {
+        NodeSnapshot root = node("X", null, null, -100000, Integer.MIN_VALUE / 2, 100000, Integer.MAX_VALUE / 2);
+        assertSameTree(root, decode(encode(root)));
+    }
+
+    @Test
+    public void decodedTreeGivesSameDetectionResult() throws IOException {
+        NodeSnapshot root = sampleTree();
+        PlaybackStateDetector<NodeSnapshot> detector = new PlaybackStateDetector<>(NodeSnapshot.ADAPTER);
+        PlaybackStateDetector.Result original = detector.detect(root);
+        PlaybackStateDetector.Result replayed = detector.detect(decode(encode(root)));
+        assertEquals(PlaybackStateDetector.STATE_PLAYING, replayed.state);
+        assertEquals(original.state, replayed.state);
+        assertEquals(original.nodesVisited, replayed.nodesVisited);
+    }
+
+    @Test
+    public void repeatedStringsAreStoredOnce() throws IOException {
+        String className = "android.widget.FrameLayout";
+        NodeSnapshot root = node(className, null, null, 0, 0, 10, 10);
+        for (int i = 0; i < 50; i++) {
+            root.children.add(node(className, null, null, 0, 0, 10, 10));
+        }
+        byte[] bytes = encode(root);
+        // 类名只出现在字符串表中一次，每个节点只存一个引用，单个节点不超过10字节
+        assertTrue(bytes.length < 2 * className.length() + root.countNodes() * 10);
+        assertSameTree(root, decode(bytes));
+    }
+
+    @Test
+    public void rejectsWrongMagic() throws IOException {
+        byte[] bytes = encode(sampleTree());
+        bytes[0] ^= 0x7F;
+        assertRejected(bytes);
+    }
+
+    @Test
+    public void rejectsUnknownVersion() throws IOException {
+        byte[] bytes = encode(sampleTree());
+        bytes[4] = 99;
+        assertRejected(bytes);
+    }
+
+    @Test
+    public void rejectsTruncatedInput() throws IOException {
+        byte[] bytes = encode(sampleTree());
+        for (int length : new int[] {0, 3, 5, bytes.length / 2, bytes.length - 1}) {
+            assertRejected(Arrays.copyOf(bytes, length));
+        }
+    }
+
+    @Test
+    public void rejectsOutOfRangeStringReference() throws IOException {
+        NodeSnapshot root = node("A", null, null, 0, 0, 1, 1);
+        byte[] bytes = encode(root);
+        // 头部(5) + 字符串数(1) + "A"(2) + 标志(1)，之后是类名引用
+        int classRef = 5 + 1 + 2 + 1;
+        assertEquals(1, bytes[classRef]);
+        bytes[classRef] = 5;
+        assertRejected(bytes);
+    }
+
+    @Test
+    public void rejectsExcessiveNesting() throws IOException {
+        NodeSnapshot root = node(null, null, null, 0, 0, 1, 1);
+        NodeSnapshot leaf = root;
+        for (int i = 0; i < 600; i++) {
+            NodeSnapshot child = node(null, null, null, 0, 0, 1, 1);
+            leaf.children.add(child);
+            leaf = child;
+        }
+        assertRejected(encode(root));
+    }
+
+    private static void assertRejected(byte[] bytes) {
+        try {
+            decode(bytes);
+            fail("应拒绝损坏的快照");
+        } catch (IOException expected) {
+            // 格式错误或提前结束（EOFException）都以 IOException 报告
+        }
+    }
+}
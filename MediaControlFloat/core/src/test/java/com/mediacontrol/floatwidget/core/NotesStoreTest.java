@@ -0,0 +1,134 @@
+package com.mediacontrol.floatwidget.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 笔记存储的日志重放、压缩，以及加载失败后的只读行为
+ */
+public class NotesStoreTest {
+    private static final long TIMEOUT_MS = 5000;
+
+    private File directory;
+
+    /**
+     * 同步等待的加载结果
+     */
+    private static class LoadResult {
+        String text;
+        boolean importedLegacy;
+        Exception error;
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("notes-store-test").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] children = directory.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                child.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void editsSurviveReloadWithoutCompaction() throws Exception {
+        NotesStore store = new NotesStore(directory);
+        assertNull(load(store, "hello").error);
+        store.recordEdit(5, 0, " world");
+        store.flush();
+        assertTrue(store.awaitIdle(TIMEOUT_MS));
+
+        LoadResult reloaded = load(new NotesStore(directory), null);
+        assertNull(reloaded.error);
+        assertFalse(reloaded.importedLegacy);
+        assertEquals("hello world", reloaded.text);
+    }
+
+    @Test
+    public void closeCompactsJournalIntoSnapshot() throws Exception {
+        NotesStore store = new NotesStore(directory);
+        load(store, "abc");
+        store.recordEdit(0, 1, "X");
+        store.close();
+        assertTrue(store.awaitIdle(TIMEOUT_MS));
+
+        assertEquals(12, new File(directory, "notes.journal").length());
+        assertEquals("Xbc", load(new NotesStore(directory), null).text);
+    }
+
+    @Test
+    public void corruptSnapshotIsReportedAndNeverOverwritten() throws Exception {
+        NotesStore seed = new NotesStore(directory);
+        load(seed, "original notes");
+        seed.close();
+        assertTrue(seed.awaitIdle(TIMEOUT_MS));
+
+        File snapshot = new File(directory, "notes.snapshot");
+        RandomAccessFile file = new RandomAccessFile(snapshot, "rw");
+        try {
+            // 翻转校验和的最后一个字节
+            file.seek(snapshot.length() - 1);
+            int last = file.read();
+            file.seek(snapshot.length() - 1);
+            file.write(last ^ 0xFF);
+        } finally {
+            file.close();
+        }
+        byte[] corrupted = Files.readAllBytes(snapshot.toPath());
+
+        NotesStore store = new NotesStore(directory);
+        LoadResult result = load(store, null);
+        assertNotNull(result.error);
+
+        store.recordEdit(0, 0, "lost");
+        store.flush();
+        store.close();
+        assertTrue(store.awaitIdle(TIMEOUT_MS));
+        assertArrayEquals(corrupted, Files.readAllBytes(snapshot.toPath()));
+    }
+
+    @Test
+    public void legacyTextIsImportedOnce() throws Exception {
+        LoadResult first = load(new NotesStore(directory), "legacy");
+        assertTrue(first.importedLegacy);
+        assertEquals("legacy", first.text);
+
+        LoadResult second = load(new NotesStore(directory), "ignored");
+        assertFalse(second.importedLegacy);
+        assertEquals("legacy", second.text);
+    }
+
+    private static LoadResult load(NotesStore store, final String legacy) throws InterruptedException {
+        final CountDownLatch loaded = new CountDownLatch(1);
+        final LoadResult result = new LoadResult();
+        store.load(legacy != null ? () -> legacy : null, Runnable::run, (text, importedLegacy, error) -> {
+            result.text = text;
+            result.importedLegacy = importedLegacy;
+            result.error = error;
+            loaded.countDown();
+        });
+        assertTrue(loaded.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        return result;
+    }
+}
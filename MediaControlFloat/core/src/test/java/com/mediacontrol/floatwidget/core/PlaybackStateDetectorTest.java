@@ -0,0 +1,176 @@
+package com.mediacontrol.floatwidget.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 播放状态检测：标签优先级、遍历上限和子节点释放
+ */
+public class PlaybackStateDetectorTest {
+
+    /**
+     * 统计 getChild/release 次数的适配器
+     */
+    private static class CountingAdapter implements NodeAdapter<NodeSnapshot> {
+        int obtained;
+        int released;
+
+        @Override
+        public int getChildCount(NodeSnapshot node) {
+            return NodeSnapshot.ADAPTER.getChildCount(node);
+        }
+
+        @Override
+        public NodeSnapshot getChild(NodeSnapshot node, int index) {
+            obtained++;
+            return NodeSnapshot.ADAPTER.getChild(node, index);
+        }
+
+        @Override
+        public CharSequence getContentDescription(NodeSnapshot node) {
+            return NodeSnapshot.ADAPTER.getContentDescription(node);
+        }
+
+        @Override
+        public boolean isFocusable(NodeSnapshot node) {
+            return NodeSnapshot.ADAPTER.isFocusable(node);
+        }
+
+        @Override
+        public boolean isClickable(NodeSnapshot node) {
+            return NodeSnapshot.ADAPTER.isClickable(node);
+        }
+
+        @Override
+        public void release(NodeSnapshot node) {
+            released++;
+        }
+    }
+
+    private final PlaybackStateDetector<NodeSnapshot> detector = new PlaybackStateDetector<>(NodeSnapshot.ADAPTER);
+
+    private static NodeSnapshot node(String description, NodeSnapshot... children) {
+        NodeSnapshot node = new NodeSnapshot();
+        node.contentDescription = description;
+        for (NodeSnapshot child : children) {
+            node.children.add(child);
+        }
+        return node;
+    }
+
+    @Test
+    public void pauseLabelMeansPlaying() {
+        NodeSnapshot root = node(null, node("视频播放器"), node("暂停视频"));
+        assertEquals(PlaybackStateDetector.STATE_PLAYING, detector.detect(root).state);
+    }
+
+    @Test
+    public void playLabelWithoutPauseMeansPaused() {
+        NodeSnapshot root = node(null, node("Play video"), node("Settings"));
+        assertEquals(PlaybackStateDetector.STATE_PAUSED, detector.detect(root).state);
+    }
+
+    @Test
+    public void noLabelsIsUnknown() {
+        NodeSnapshot root = node(null, node("Settings"), node(null));
+        assertEquals(PlaybackStateDetector.STATE_UNKNOWN, detector.detect(root).state);
+    }
+
+    @Test
+    public void nullRootIsUnknown() {
+        PlaybackStateDetector.Result result = detector.detect(null);
+        assertEquals(PlaybackStateDetector.STATE_UNKNOWN, result.state);
+        assertEquals(0, result.nodesVisited);
+    }
+
+    @Test
+    public void autoplayToggleBeforePauseButtonStillMeansPlaying() {
+        // 回归：先遍历到的"自动播放"开关包含"播放"，不能在看到暂停按钮之前就判定为已暂停
+        NodeSnapshot root = node(null,
+            node(null, node("自动播放已开启"), node("播放列表")),
+            node(null, node(null, node("暂停（k）"))));
+        PlaybackStateDetector.Result result = detector.detect(root);
+        assertEquals(PlaybackStateDetector.STATE_PLAYING, result.state);
+        assertTrue(result.isPlaying());
+    }
+
+    @Test
+    public void englishPlaylistBeforePauseStillMeansPlaying() {
+        NodeSnapshot root = node(null, node("Playlist"), node("Pause video"));
+        assertEquals(PlaybackStateDetector.STATE_PLAYING, detector.detect(root).state);
+    }
+
+    @Test
+    public void pauseInsideSameDescriptionWinsOverPlay() {
+        NodeSnapshot root = node(null, node("播放/暂停"));
+        assertEquals(PlaybackStateDetector.STATE_PLAYING, detector.detect(root).state);
+    }
+
+    @Test
+    public void stopsAtFirstPauseMatch() {
+        NodeSnapshot root = node(null, node("暂停"), node("a"), node("b"), node("c"));
+        PlaybackStateDetector.Result result = detector.detect(root);
+        assertEquals(PlaybackStateDetector.STATE_PLAYING, result.state);
+        assertEquals(2, result.nodesVisited);
+        assertFalse(result.truncated);
+    }
+
+    @Test
+    public void playMatchDoesNotStopTraversal() {
+        NodeSnapshot root = node(null, node("播放"), node("a"), node("b"));
+        PlaybackStateDetector.Result result = detector.detect(root);
+        assertEquals(PlaybackStateDetector.STATE_PAUSED, result.state);
+        assertEquals(4, result.nodesVisited);
+    }
+
+    @Test
+    public void customLabelTableIsUsed() {
+        PlaybackStateDetector<NodeSnapshot> japanese = new PlaybackStateDetector<>(NodeSnapshot.ADAPTER,
+            new PlaybackStateDetector.LabelTable().addLocale("再生", "一時停止"), 40, 3000);
+        assertEquals(PlaybackStateDetector.STATE_PLAYING, japanese.detect(node(null, node("一時停止"))).state);
+        assertEquals(PlaybackStateDetector.STATE_UNKNOWN, japanese.detect(node(null, node("暂停"))).state);
+    }
+
+    @Test
+    public void depthLimitTruncatesSearch() {
+        NodeSnapshot leaf = node("暂停");
+        NodeSnapshot root = leaf;
+        for (int i = 0; i < 5; i++) {
+            root = node(null, root);
+        }
+        PlaybackStateDetector<NodeSnapshot> shallow = new PlaybackStateDetector<>(NodeSnapshot.ADAPTER,
+            PlaybackStateDetector.LabelTable.defaults(), 3, 3000);
+        PlaybackStateDetector.Result result = shallow.detect(root);
+        assertEquals(PlaybackStateDetector.STATE_UNKNOWN, result.state);
+        assertTrue(result.truncated);
+    }
+
+    @Test
+    public void nodeLimitTruncatesSearch() {
+        NodeSnapshot root = node(null);
+        for (int i = 0; i < 10; i++) {
+            root.children.add(node("item " + i));
+        }
+        root.children.add(node("暂停"));
+        PlaybackStateDetector<NodeSnapshot> limited = new PlaybackStateDetector<>(NodeSnapshot.ADAPTER,
+            PlaybackStateDetector.LabelTable.defaults(), 40, 5);
+        PlaybackStateDetector.Result result = limited.detect(root);
+        assertEquals(PlaybackStateDetector.STATE_UNKNOWN, result.state);
+        assertEquals(5, result.nodesVisited);
+    }
+
+    @Test
+    public void everyObtainedChildIsReleased() {
+        CountingAdapter adapter = new CountingAdapter();
+        PlaybackStateDetector<NodeSnapshot> counting = new PlaybackStateDetector<>(adapter);
+        NodeSnapshot root = node(null,
+            node(null, node("播放"), node("x")),
+            node(null, node("暂停"), node("never visited")));
+        assertEquals(PlaybackStateDetector.STATE_PLAYING, counting.detect(root).state);
+        assertEquals(5, adapter.obtained);
+        assertEquals(adapter.obtained, adapter.released);
+    }
+}
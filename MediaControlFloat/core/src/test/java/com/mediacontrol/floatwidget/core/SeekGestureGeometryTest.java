@@ -0,0 +1,89 @@
+package com.mediacontrol.floatwidget.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 跳转手势的点击位置、笔画数与时长
+ */
+public class SeekGestureGeometryTest {
+
+    @Test
+    public void playerTargetIsCenterOfSideThird() {
+        SeekGestureGeometry.TapTarget rewind = SeekGestureGeometry.computePlayerSeekTarget(0, 200, 1080, 808, false);
+        assertEquals(180, rewind.x);
+        assertEquals(504, rewind.y);
+
+        SeekGestureGeometry.TapTarget forward = SeekGestureGeometry.computePlayerSeekTarget(0, 200, 1080, 808, true);
+        assertEquals(900, forward.x);
+        assertEquals(504, forward.y);
+    }
+
+    @Test
+    public void playerTargetFollowsOffsetPlayer() {
+        // 分屏或小窗：播放器不在屏幕原点
+        SeekGestureGeometry.TapTarget target = SeekGestureGeometry.computePlayerSeekTarget(600, 1200, 1200, 1560, false);
+        assertEquals(700, target.x);
+        assertEquals(1380, target.y);
+    }
+
+    @Test
+    public void fallbackMatchesReportedPositionOnReferenceScreen() {
+        SeekGestureGeometry.TapTarget target = SeekGestureGeometry.computeSeekTarget(0, 0, 1080, 2340, false);
+        assertEquals(96, target.x);
+        assertEquals(445, target.y);
+    }
+
+    @Test
+    public void fallbackForwardIsMirrored() {
+        SeekGestureGeometry.TapTarget target = SeekGestureGeometry.computeSeekTarget(0, 0, 1080, 2340, true);
+        assertEquals(1080 - 96, target.x);
+        assertEquals(445, target.y);
+    }
+
+    @Test
+    public void fallbackKeepsAwayFromEdges() {
+        // 窄窗口：x 不小于80；矮窗口：y 不高于窗口顶部200像素
+        SeekGestureGeometry.TapTarget target = SeekGestureGeometry.computeSeekTarget(0, 100, 600, 900, false);
+        assertEquals(80, target.x);
+        assertEquals(300, target.y);
+    }
+
+    @Test
+    public void invalidBoundsUseDefaultPosition() {
+        SeekGestureGeometry.TapTarget player = SeekGestureGeometry.computePlayerSeekTarget(100, 100, 100, 500, false);
+        assertEquals(96, player.x);
+        assertEquals(445, player.y);
+
+        SeekGestureGeometry.TapTarget window = SeekGestureGeometry.computeSeekTarget(0, 500, 1080, 400, true);
+        assertEquals(96, window.x);
+        assertEquals(445, window.y);
+    }
+
+    @Test
+    public void strokeCountAddsOneTapForFirstSeek() {
+        assertEquals(2, SeekGestureGeometry.strokeCount(1, 20));
+        assertEquals(4, SeekGestureGeometry.strokeCount(3, 20));
+        assertEquals(2, SeekGestureGeometry.strokeCount(0, 20));
+    }
+
+    @Test
+    public void strokeCountIsCappedBySystemLimit() {
+        assertEquals(10, SeekGestureGeometry.strokeCount(15, 10));
+    }
+
+    @Test
+    public void strokesAreSpacedByTapInterval() {
+        assertEquals(0, SeekGestureGeometry.strokeStartTime(0));
+        assertEquals(SeekGestureGeometry.MULTI_TAP_INTERVAL_MS * 3, SeekGestureGeometry.strokeStartTime(3));
+    }
+
+    @Test
+    public void durationCoversLastStroke() {
+        int taps = 4;
+        int lastStroke = SeekGestureGeometry.strokeCount(taps, 20) - 1;
+        long lastStrokeEnd = SeekGestureGeometry.strokeStartTime(lastStroke) + SeekGestureGeometry.TAP_DURATION_MS;
+        assertEquals(lastStrokeEnd, SeekGestureGeometry.multiTapDurationMs(taps));
+    }
+}
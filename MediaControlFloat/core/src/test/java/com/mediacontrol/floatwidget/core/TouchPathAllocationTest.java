@@ -0,0 +1,98 @@
+package com.mediacontrol.floatwidget.core;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 悬浮窗触摸路径的分配检查：每个 ACTION_MOVE 依次做编辑框命中判断和拖拽判定，不能分配对象
+ * 用 com.sun.management.ThreadMXBean 统计当前线程分配的字节数；JVM 不支持时跳过
+ */
+public class TouchPathAllocationTest {
+    private static final int EVENTS = 100000;
+
+    private com.sun.management.ThreadMXBean threads;
+
+    @Before
+    public void setUp() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    public void moveEventsDoNotAllocate() {
+        HitRegion editor = new HitRegion();
+        editor.set(0, 400, 600, 900);
+        // 与 FloatingService 中根视图和按钮的监听器使用相同的参数
+        DragClickClassifier root = new DragClickClassifier(10, 0);
+        DragClickClassifier button = new DragClickClassifier(15, 300);
+
+        // 先跑一轮，排除类加载和首次调用的分配
+        long sink = replay(editor, root, button);
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        sink += replay(editor, root, button);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        // 任何一次对象分配至少16字节，总量小于事件数即说明每个事件都没有分配
+        assertTrue("触摸路径分配了 " + allocated + " 字节（" + EVENTS + " 个事件）", allocated < EVENTS);
+        assertTrue(sink != 0);
+    }
+
+    // 模拟一次长拖拽：按下后连续移动，最后抬起；返回偏移累加值，避免调用被优化掉
+    private static long replay(HitRegion editor, DragClickClassifier root, DragClickClassifier button) {
+        long sink = 0;
+        root.onDown(300, 200, 0);
+        button.onDown(300, 200, 0);
+        for (int i = 0; i < EVENTS; i++) {
+            float x = 300 + (i % 200);
+            float y = 200 + (i % 150) * 0.5f;
+            if (!editor.contains(x - 300, y - 200)) {
+                if (root.onMove(x, y)) {
+                    sink += root.getDeltaX() + root.getDeltaY();
+                }
+            }
+            boolean wasDragging = button.isDragging();
+            if (button.onMove(x, y) && !wasDragging) {
+                sink++;
+            }
+            sink += button.getDeltaX() - button.getDeltaY();
+        }
+        sink += root.onUp(EVENTS) + button.onUp(EVENTS);
+        return sink;
+    }
+
+    @Test
+    public void hitRegionUsesHalfOpenBounds() {
+        HitRegion region = new HitRegion();
+        region.set(10, 20, 110, 220);
+        assertTrue(region.contains(10, 20));
+        assertTrue(region.contains(109.9f, 219.9f));
+        assertFalse(region.contains(110, 100));
+        assertFalse(region.contains(50, 220));
+        assertFalse(region.contains(9.5f, 100));
+    }
+
+    @Test
+    public void emptyRegionContainsNothing() {
+        HitRegion region = new HitRegion();
+        assertTrue(region.isEmpty());
+        assertFalse(region.contains(0, 0));
+        region.set(10, 10, 20, 20);
+        region.setEmpty();
+        assertTrue(region.isEmpty());
+        assertFalse(region.contains(15, 15));
+        region.set(30, 30, 20, 40);
+        assertTrue(region.isEmpty());
+        assertFalse(region.contains(25, 35));
+    }
+}